@@ -27,6 +27,7 @@ import ast.types.parser.ParseBase;
 import ast.types.parser.ParseDecl;
 import ast.types.util.TypeMerger;
 import ast.types.util.TypeSizes;
+import ast.unit.ExternalDeclaration;
 import ast.unit.TranslationUnit;
 import jscan.Tokenlist;
 import jscan.hashed.Hash_ident;
@@ -798,6 +799,33 @@ public class TestCTypeNew {
     assertEquals(1 * 2 * 3 * TypeSizes.get(CTypeKind.TP_INT), var.getType().getSize());
   }
 
+  @Test
+  public void testArrayOfStructCompletedLater() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    //@formatter:off
+    sb.append(" struct S;                  \n");
+    sb.append(" typedef struct S A[4];     \n");
+    sb.append(" struct S { int x; };       \n");
+    sb.append(" struct S b[4];             \n");
+    //@formatter:on
+
+    Tokenlist it = new ParserMain(sb).preprocess();
+    Parse p = new Parse(it);
+    TranslationUnit unit = p.parse_unit();
+
+    CSymbol var = null;
+    for (ExternalDeclaration ed : unit.getExternalDeclarations()) {
+      Declaration decl = ed.getDeclaration();
+      if (decl != null && decl.getVariables() != null && decl.getVariables().get(0).getName().getName().equals("b")) {
+        var = decl.getVariables().get(0);
+      }
+    }
+
+    assertNotNull(var);
+    assertTrue(var.getType().isArray());
+    assertEquals(4 * TypeSizes.get(CTypeKind.TP_INT), var.getType().getSize());
+  }
+
   @Test
   public void testTypedefsMix1() throws IOException {
 
@@ -1,13 +1,35 @@
 package ast;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
 import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
+import ast.expr.CExpression;
 import ast.main.ParserMain;
+import ast.parse.Parse;
+import ast.symtab.elements.CSymbol;
 import ast.unit.ExternalDeclaration;
+import ast.unit.ExternalDeclarationConsumer;
+import ast.unit.FunctionDefinition;
 import ast.unit.TranslationUnit;
 import jscan.Tokenlist;
+import jscan.symtab.Ident;
+import jscan.tokenize.T;
 import jscan.tokenize.Token;
 
 public class TestParserMain {
@@ -31,4 +53,188 @@ public class TestParserMain {
     }
   }
 
+  @Test
+  public void testParseStreaming() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("int a;                     \n");
+    sb.append("struct s { int x; };       \n");
+    sb.append("int f(void) { return a; }  \n");
+    sb.append("int b, c;                  \n");
+
+    final List<ExternalDeclaration> seen = new ArrayList<ExternalDeclaration>();
+    ExternalDeclarationConsumer consumer = new ExternalDeclarationConsumer() {
+      @Override
+      public void consume(ExternalDeclaration ed) {
+        seen.add(ed);
+      }
+    };
+
+    TranslationUnit unit = new ParserMain(sb).parseUnit(consumer, false);
+    assertEquals(4, seen.size());
+    assertEquals(0, unit.getExternalDeclarations().size());
+    assertEquals(true, seen.get(2).isFunctionDefinition());
+
+    seen.clear();
+    unit = new ParserMain(sb).parseUnit(consumer, true);
+    assertEquals(4, seen.size());
+    assertEquals(4, unit.getExternalDeclarations().size());
+  }
+
+  @Test
+  public void testTrim() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("int a = 1;                            \n");
+    sb.append("int f(int x) { return x + a * 2; }    \n");
+
+    ParserMain parser = new ParserMain(sb);
+    parser.setLazyBodies(true);
+    TranslationUnit unit = parser.parseUnit();
+    unit.trim();
+
+    FunctionDefinition f = unit.getExternalDeclarations().get(1).getFunctionDefinition();
+    assertEquals(true, f.isBodyParsed());
+    assertEquals("f", f.getSignature().getFrom().getValue());
+
+    CExpression ret = f.getBlock().getCompound().get(0).getStatement().getExpr();
+    assertEquals("(x + (a * 2))", ret.toString());
+    assertEquals("x", ret.getLhs().getToken().getValue());
+    assertEquals(T.T_PLUS, ret.getToken().getType());
+    assertEquals(2, ret.getToken().getLocation().getLine());
+  }
+
+  @Test
+  public void testTrimKeepsNoTokens() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    sb.append("struct s { int x; };                                          \n");
+    sb.append("enum e { E1, E2 = 4 };                                        \n");
+    sb.append("int a = E2;                                                   \n");
+    sb.append("int f(struct s *p) {                                          \n");
+    sb.append("  char *str = \"str\";                                        \n");
+    sb.append("  switch (p->x) { case E1: return str[0]; default: break; }   \n");
+    sb.append("  return a + sizeof(struct s) + E1;                           \n");
+    sb.append("}                                                             \n");
+
+    Tokenlist list = new ParserMain(sb).preprocess();
+    IdentityHashMap<Object, Boolean> source = new IdentityHashMap<Object, Boolean>();
+    for (Token t : list.getList()) {
+      source.put(t, true);
+    }
+
+    Parse parser = new Parse(list);
+    parser.setLazyBodies(true);
+    TranslationUnit unit = parser.parse_unit();
+    unit.trim();
+
+    assertNoTokenReachable(unit, source);
+  }
+
+  @Test
+  public void testTrimKeepsLiterals() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("int f() {                              \n");
+    sb.append("  char *a = \"aa\", *b = \"bb\";           \n");
+    sb.append("  return a[0] + b[1] + 'c' + 16;       \n");
+    sb.append("}                                      \n");
+
+    TranslationUnit unit = new ParserMain(sb).parseUnit();
+    FunctionDefinition f = unit.getExternalDeclarations().get(0).getFunctionDefinition();
+
+    // the token of the source, until the unit is trimmed
+    final CSymbol a = f.getLocals().get(0);
+    assertSame(a.getFrom(), a.getFrom());
+
+    unit.trim();
+    assertNotSame(a.getFrom(), a.getFrom());
+    assertEquals("a", a.getFrom().getValue());
+    assertEquals(2, a.getFrom().getLocation().getLine());
+
+    final CExpression aa = a.getInitializer().get(0).getInit();
+    final CExpression bb = f.getLocals().get(1).getInitializer().get(0).getInit();
+    assertEquals("\"aa\"", aa.getToken().getValue());
+    assertEquals("\"bb\"", bb.getToken().getValue());
+    assertEquals(T.TOKEN_STRING, bb.getToken().getType());
+
+    // ((a[0] + b[1]) + 'c') + 16
+    CExpression ret = f.getBlock().getCompound().get(1).getStatement().getExpr();
+    assertEquals("16", ret.getRhs().getToken().getValue());
+    assertEquals(T.TOKEN_NUMBER, ret.getRhs().getToken().getType());
+    assertEquals("'c'", ret.getLhs().getRhs().getToken().getValue());
+    assertEquals(T.TOKEN_CHAR, ret.getLhs().getRhs().getToken().getType());
+  }
+
+  @Test
+  public void testLocationMaterializedOnce() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("int f(int x) {     \n");
+    sb.append("  return x + 1;    \n");
+    sb.append("}                  \n");
+
+    TranslationUnit unit = new ParserMain(sb).parseUnit();
+    FunctionDefinition f = unit.getExternalDeclarations().get(0).getFunctionDefinition();
+    CExpression ret = f.getBlock().getCompound().get(0).getStatement().getExpr();
+
+    assertSame(ret.getLocation(), ret.getLocation());
+    assertEquals(2, ret.getLocation().getLine());
+    assertEquals(ret.getLocation().getFilename(), ret.getLocationFile());
+    assertEquals(2, ret.getLocationLine());
+  }
+
+  // walks the fields of the nodes, the collections, and the arrays.
+  // identifiers are hashed by jscan for the whole process, they are not a part of the unit.
+  // the spellings are copies, they are walked as the nodes are.
+  private void assertNoTokenReachable(Object root, Map<Object, Boolean> source) throws IllegalAccessException {
+    IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+    Deque<Object> stack = new ArrayDeque<Object>();
+    stack.push(root);
+
+    while (!stack.isEmpty()) {
+      final Object o = stack.pop();
+      if (o == null || seen.containsKey(o)) {
+        continue;
+      }
+      seen.put(o, true);
+
+      if (source.containsKey(o)) {
+        fail("token is reachable from the trimmed unit: " + ((Token) o).getValue());
+      }
+      if (o instanceof Ident || o instanceof String || o instanceof Number || o instanceof Enum<?>) {
+        continue;
+      }
+      if (o instanceof Collection<?>) {
+        for (Object e : (Collection<?>) o) {
+          stack.push(e);
+        }
+        continue;
+      }
+      if (o instanceof Map<?, ?>) {
+        for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+          stack.push(e.getKey());
+          stack.push(e.getValue());
+        }
+        continue;
+      }
+      if (o.getClass().isArray()) {
+        if (!o.getClass().getComponentType().isPrimitive()) {
+          for (int i = 0; i < Array.getLength(o); i++) {
+            stack.push(Array.get(o, i));
+          }
+        }
+        continue;
+      }
+      if (o.getClass().getName().startsWith("java.")) {
+        continue;
+      }
+
+      for (Class<?> c = o.getClass(); c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+            continue;
+          }
+          field.setAccessible(true);
+          stack.push(field.get(o));
+        }
+      }
+    }
+  }
+
 }
@@ -0,0 +1,21 @@
+package ast;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/// Source files of the tests, removed when the tests are done.
+public abstract class TestSources {
+
+  public static String tempSource(String suffix, String content) throws IOException {
+    File file = File.createTempFile("ast_", suffix);
+    file.deleteOnExit();
+
+    FileWriter writer = new FileWriter(file);
+    writer.write(content);
+    writer.close();
+
+    return file.getAbsolutePath();
+  }
+
+}
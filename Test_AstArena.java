@@ -0,0 +1,107 @@
+package ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import ast.expr.CExpressionBase;
+import ast.main.ParserMain;
+import ast.stmt.main.CStatementBase;
+import ast.unit.arena.AstView;
+import jscan.tokenize.T;
+
+public class Test_AstArena {
+
+  @Test
+  public void testFunctionBody() throws IOException {
+    //@formatter:off
+    StringBuilder sb = new StringBuilder();
+    sb.append(" /*001*/  int h;                                        \n");
+    sb.append(" /*002*/  int f(int a, int b) {                         \n");
+    sb.append(" /*003*/    int c = a;                                  \n");
+    sb.append(" /*004*/    for (int i = 0; i < b; i++) { c = c + i; }  \n");
+    sb.append(" /*005*/    return a ? f(b, c) : 0;                     \n");
+    sb.append(" /*006*/  }                                             \n");
+    //@formatter:on
+
+    AstView view = new ParserMain(sb).parseUnitToArena();
+    assertEquals(2, view.getExternalCount());
+    assertTrue(view.isDeclaration(view.getExternal(0)));
+
+    final int f = view.getExternal(1);
+    assertTrue(view.isFunctionDefinition(f));
+    assertEquals("f", view.getSignature(f).getName().getName());
+
+    final int block = view.getBlock(f);
+    assertEquals(CStatementBase.SCOMPOUND, view.getStatementBase(block));
+    assertEquals(3, view.getCompoundCount(block));
+
+    // declarations are nodes: int c = a;
+    final int decl = view.getCompoundItem(block, 0);
+    assertTrue(view.isDeclaration(decl));
+    assertEquals(1, view.getVariableCount(decl));
+
+    final int c = view.getVariable(decl, 0);
+    assertTrue(view.isVariable(c));
+    assertEquals("c", view.getSymbol(c).getName().getName());
+    assertEquals(1, view.getInitializerCount(c));
+
+    final int init = view.getInitializer(c, 0);
+    assertTrue(view.isInitializer(init));
+    assertEquals(0, view.getInitializerOffset(init));
+    assertEquals("a", view.getSymbol(view.getInitializerExpr(init)).getName().getName());
+
+    final int loop = view.getCompoundItem(block, 1);
+    assertEquals(CStatementBase.SFOR, view.getStatementBase(loop));
+    assertEquals(CExpressionBase.EBINARY, view.getExpressionBase(view.getTest(loop)));
+    assertEquals(T.T_LT, view.getOperator(view.getTest(loop)));
+    assertTrue(view.isDeclaration(view.getDecl(loop)));
+    assertEquals(CExpressionBase.EPOSTINCDEC, view.getExpressionBase(view.getStep(loop)));
+    assertEquals(AstView.NONE, view.getInit(loop));
+    assertNotNull(view.getLocation(loop));
+    assertEquals(4, view.getLocation(loop).getLine());
+    assertEquals(view.getSignature(f).getLocationFile(), view.getLocation(loop).getFilename());
+
+    final int ret = view.getCompoundItem(block, 2);
+    assertEquals(CStatementBase.SRETURN, view.getStatementBase(ret));
+
+    final int ternary = view.getExpr(ret);
+    assertEquals(CExpressionBase.ETERNARY, view.getExpressionBase(ternary));
+    assertEquals("a", view.getSymbol(view.getCnd(ternary)).getName().getName());
+
+    final int call = view.getLhs(ternary);
+    assertEquals(CExpressionBase.EFCALL, view.getExpressionBase(call));
+    assertEquals(2, view.getArgCount(call));
+    assertEquals("c", view.getSymbol(view.getArg(call, 1)).getName().getName());
+    assertTrue(view.getResultType(call).isInteger());
+  }
+
+  @Test
+  public void testDeepChain() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("int a;\n");
+    sb.append("int f(void) { return a");
+    for (int i = 0; i < 50000; i++) {
+      sb.append(" + a");
+    }
+    sb.append("; }\n");
+
+    AstView view = new ParserMain(sb).parseUnitToArena();
+    final int ret = view.getCompoundItem(view.getBlock(view.getExternal(1)), 0);
+
+    int e = view.getExpr(ret);
+    int depth = 0;
+    while (view.getExpressionBase(e) == CExpressionBase.EBINARY) {
+      assertEquals(T.T_PLUS, view.getOperator(e));
+      e = view.getLhs(e);
+      depth++;
+    }
+    assertEquals(50000, depth);
+    assertEquals("a", view.getSymbol(e).getName().getName());
+  }
+
+}
@@ -2,6 +2,7 @@ package ast;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -9,15 +10,24 @@ import java.util.List;
 
 import org.junit.Test;
 
+import ast.errors.ParseException;
 import ast.main.ParserMain;
 import ast.parse.Parse;
-import ast.unit.parser.ParseExternal;
+import ast.unit.ExternalDeclaration;
+import ast.unit.TranslationUnit;
 import jscan.Tokenlist;
 
 public class Test_DiscoverTheFunction {
 
+  // the external declaration is parsed once, the token after the first declarator decides.
   private boolean isFunc(Parse parser) {
-    return new ParseExternal(parser).isFunc();
+    TranslationUnit unit = parser.parse_unit();
+    for (ExternalDeclaration ed : unit.getExternalDeclarations()) {
+      if (ed.isFunctionDefinition()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Test
@@ -51,7 +61,6 @@ public class Test_DiscoverTheFunction {
     List<String> tests = new ArrayList<String>();
     tests.add("   struct s f() {}                  ; \n");
     tests.add(" ; int f() {}                       ; \n");
-    tests.add("   int KnR(a,b,c) int a,b,c; {}       \n");
     tests.add("   int main(int argc, char **argv) {} \n");
     tests.add("  __attribute__((always_inline)) inline int prefix()  { return 1; } \n");
     //@formatter:on
@@ -66,4 +75,29 @@ public class Test_DiscoverTheFunction {
 
   }
 
+  // K&R function-definitions are not implemented
+  @Test(expected = ParseException.class)
+  public void testKnRFunction() throws IOException {
+    Tokenlist it = new ParserMain(new StringBuilder("int KnR(a,b,c) int a,b,c; {} \n")).preprocess();
+    Parse p = new Parse(it);
+    p.parse_unit();
+  }
+
+  // the diagnostic is the same, whatever token starts the declaration-list
+  @Test
+  public void testKnRDiagnostic() throws IOException {
+    final String[] sources = { "int KnR(a,b) int a, b; {} \n", "int KnR(a,b) register a; {} \n",
+        "int KnR(a,b) a; b; {} \n", "int (*KnR(a))(void) a; {} \n" };
+
+    for (String source : sources) {
+      Tokenlist it = new ParserMain(new StringBuilder(source)).preprocess();
+      try {
+        new Parse(it).parse_unit();
+        fail(source);
+      } catch (ParseException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("KnR"));
+      }
+    }
+  }
+
 }
@@ -0,0 +1,170 @@
+package ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ast.errors.ParseException;
+import ast.symtab.FlatSymtab;
+import ast.symtab.Symtab;
+import ast.symtab.SymtabApi;
+
+public class Test_FlatSymtab {
+
+  @Test
+  public void testShadowing() {
+    SymtabApi<String, String> symtab = new FlatSymtab<String, String>();
+    symtab.pushscope();
+    symtab.addsym("a", "file.a");
+    symtab.addsym("b", "file.b");
+
+    symtab.pushscope();
+    symtab.addsym("a", "block.a");
+    assertEquals("block.a", symtab.getsym("a"));
+    assertEquals("file.b", symtab.getsym("b"));
+    assertNull(symtab.getsymFromCurrentScope("b"));
+
+    symtab.addsym("a", "block.a2");
+    assertEquals("block.a2", symtab.getsym("a"));
+
+    symtab.popscope();
+    assertEquals("file.a", symtab.getsym("a"));
+    assertEquals(true, symtab.isFileScope());
+
+    symtab.popscope();
+    assertEquals(true, symtab.isEmpty());
+  }
+
+  @Test
+  public void testRebinding() {
+    final List<String> rebound = new ArrayList<String>();
+    FlatSymtab<String, String> symtab = new FlatSymtab<String, String>();
+    symtab.setRebinding(new FlatSymtab.Rebinding<String>() {
+      @Override
+      public void rebound(String key) {
+        rebound.add(key);
+      }
+    });
+
+    symtab.pushscope();
+    symtab.addsym("a", "file.a");
+    symtab.pushscope();
+    symtab.addsym("b", "block.b");
+    symtab.addsym("a", "block.a");
+    assertEquals("[a, b, a]", rebound.toString());
+
+    rebound.clear();
+    symtab.popscope();
+    assertEquals("[a, b]", rebound.toString());
+  }
+
+  @Test
+  public void testReusedBindings() {
+    SymtabApi<String, String> symtab = new FlatSymtab<String, String>();
+    symtab.pushscope();
+    symtab.addsym("a", "file.a");
+
+    for (int i = 0; i < 8; i++) {
+      symtab.pushscope();
+      symtab.addsym("a", "block.a" + i);
+      symtab.addsym("b" + i, "block.b" + i);
+      assertEquals("block.a" + i, symtab.getsym("a"));
+      symtab.popscope();
+
+      assertEquals("file.a", symtab.getsym("a"));
+      assertNull(symtab.getsym("b" + i));
+    }
+  }
+
+  @Test
+  public void testFileScopeMarks() {
+    Map<String, String> base = new HashMap<String, String>();
+    base.put("size_t", "prelude");
+    base.put("a", "prelude.a");
+
+    FlatSymtab<String, String> symtab = new FlatSymtab<String, String>(base);
+    symtab.enableFileScopeHistory();
+    symtab.pushscope();
+    symtab.addsym("a", "file.a");
+    final int mark = symtab.markFileScope();
+    symtab.addsym("a", "file.a2");
+    symtab.addsym("b", "file.b");
+
+    Map<String, String> view = symtab.freezeFileScope(mark);
+    assertEquals("file.a", view.get("a"));
+    assertNull(view.get("b"));
+    assertEquals("prelude", view.get("size_t"));
+
+    Map<String, String> expect = new HashMap<String, String>();
+    expect.put("size_t", "prelude");
+    expect.put("a", "file.a");
+    assertEquals(expect, new HashMap<String, String>(view));
+    assertEquals(2, view.size());
+
+    // the view stays valid after the scope is popped
+    symtab.popscope();
+    assertEquals("file.a", view.get("a"));
+  }
+
+  @Test(expected = ParseException.class)
+  public void testFileScopeMarksNeedHistory() {
+    FlatSymtab<String, String> symtab = new FlatSymtab<String, String>();
+    symtab.pushscope();
+    symtab.markFileScope();
+  }
+
+  @Test
+  public void testFileScopeBase() {
+    Map<String, String> base = new HashMap<String, String>();
+    base.put("size_t", "prelude");
+
+    SymtabApi<String, String> symtab = new FlatSymtab<String, String>(base);
+    symtab.pushscope();
+    assertEquals("prelude", symtab.getsymFromCurrentScope("size_t"));
+
+    symtab.pushscope();
+    assertNull(symtab.getsymFromCurrentScope("size_t"));
+    assertEquals("prelude", symtab.getsym("size_t"));
+    symtab.popscope();
+
+    symtab.addsym("x", "x");
+    assertEquals(2, symtab.freezeFileScope().size());
+  }
+
+  @Test
+  public void testSameAsSymtab() {
+    SymtabApi<String, String> flat = new FlatSymtab<String, String>();
+    SymtabApi<String, String> list = new Symtab<String, String>();
+
+    flat.pushscope();
+    list.pushscope();
+
+    // deep nesting, many names: the table grows while shadowed bindings are alive
+    for (int depth = 0; depth < 32; depth++) {
+      flat.pushscope();
+      list.pushscope();
+      for (int n = 0; n < 64; n += (depth % 3) + 1) {
+        String key = "v" + n;
+        String value = key + "@" + depth;
+        flat.addsym(key, value);
+        list.addsym(key, value);
+      }
+      if (depth % 4 == 3) {
+        flat.popscope();
+        list.popscope();
+      }
+      for (int n = 0; n < 70; n++) {
+        String key = "v" + n;
+        assertEquals(list.getsym(key), flat.getsym(key));
+        assertEquals(list.getsymFromCurrentScope(key), flat.getsymFromCurrentScope(key));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,87 @@
+package ast;
+
+import static ast.TestSources.tempSource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import ast.decls.Declaration;
+import ast.main.ParserMain;
+import ast.parse.HeaderUnitCache;
+import ast.symtab.elements.CSymbol;
+import ast.unit.ExternalDeclaration;
+import ast.unit.TranslationUnit;
+
+public class Test_HeaderUnits {
+
+  private CSymbol findVariable(TranslationUnit unit, String name) {
+    for (ExternalDeclaration ed : unit.getExternalDeclarations()) {
+      Declaration decl = ed.getDeclaration();
+      if (decl == null || decl.getVariables() == null) {
+        continue;
+      }
+      for (CSymbol sym : decl.getVariables()) {
+        if (sym.getName().getName().equals(name)) {
+          return sym;
+        }
+      }
+    }
+    return null;
+  }
+
+  private TranslationUnit parse(String filename, HeaderUnitCache cache) throws IOException {
+    ParserMain parser = new ParserMain(filename);
+    parser.setHeaderUnits(cache);
+    return parser.parseUnit();
+  }
+
+  @Test
+  public void testSameHeaderAfterDifferentTypedefs() throws IOException {
+    final String common = tempSource(".h", "T g(T x);\n");
+    final String intT = tempSource(".h", "typedef int T;\n");
+    final String longT = tempSource(".h", "typedef long T;\n");
+
+    final String first = tempSource(".c", "#include \"" + intT + "\"\nint m;\n#include \"" + common + "\"\n");
+    final String second = tempSource(".c", "#include \"" + longT + "\"\nint m;\n#include \"" + common + "\"\n");
+
+    HeaderUnitCache cache = new HeaderUnitCache();
+
+    CSymbol g1 = findVariable(parse(first, cache), "g");
+    assertNotNull(g1);
+    assertTrue(g1.getType().getTpFunction().getReturnType().isInt());
+    assertEquals(2, cache.size());
+
+    // the tokens of the common header are the same, the typedef before it is not.
+    CSymbol g2 = findVariable(parse(second, cache), "g");
+    assertNotNull(g2);
+    assertTrue(g2.getType().getTpFunction().getReturnType().isLong());
+    assertEquals(4, cache.size());
+
+    // the same context again is a hit.
+    CSymbol g3 = findVariable(parse(first, cache), "g");
+    assertTrue(g1 == g3);
+    assertEquals(4, cache.size());
+  }
+
+  // a forward declaration of a header is completed by each unit on its own
+  @Test
+  public void testSharedTagsAreNotCompleted() throws IOException {
+    final String forward = tempSource(".h", "struct S;\ntypedef int A[];\n");
+    final String four = tempSource(".c", "#include \"" + forward + "\"\nstruct S { int x; } s;\nA a = { 1 };\n");
+    final String eight = tempSource(".c", "#include \"" + forward + "\"\nstruct S { int x, y; } s;\nA a = { 1, 2 };\n");
+
+    HeaderUnitCache cache = new HeaderUnitCache();
+    for (int i = 0; i < 2; i++) {
+      assertEquals(4, findVariable(parse(four, cache), "s").getType().getSize());
+      assertEquals(8, findVariable(parse(eight, cache), "s").getType().getSize());
+      assertEquals(4, findVariable(parse(four, cache), "a").getType().getSize());
+      assertEquals(8, findVariable(parse(eight, cache), "a").getType().getSize());
+    }
+    assertEquals(1, cache.size());
+  }
+
+}
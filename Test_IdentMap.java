@@ -4,13 +4,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Test;
 
 import ast.main.ParserMain;
+import ast.parse.IdentClass;
 import ast.parse.Pcheckers;
 import ast.symtab.IdentMap;
 import jscan.Tokenlist;
+import jscan.hashed.Hash_all;
 import jscan.tokenize.T;
 import jscan.tokenize.Token;
 
@@ -34,4 +38,46 @@ public class Test_IdentMap {
     }
   }
 
+  private List<Token> tokens(String source) throws IOException {
+    List<Token> result = new ArrayList<Token>();
+    Tokenlist it = new ParserMain(new StringBuilder(source)).preprocess();
+    for (;;) {
+      Token t = it.next();
+      if (t.ofType(T.TOKEN_STREAMBEGIN) || t.ofType(T.TOKEN_STREAMEND)) {
+        continue;
+      }
+      if (t.ofType(T.TOKEN_EOF)) {
+        break;
+      }
+      result.add(t);
+    }
+    return result;
+  }
+
+  @Test
+  public void testClassesAfterClearAll() throws IOException {
+    final String source = "static const int x; union u; __inline__ _Noreturn void f(void); asm";
+
+    for (int i = 0; i < 2; i++) {
+      Hash_all.clearAll();
+      List<Token> t = tokens(source);
+
+      assertEquals(IdentClass.STORAGE_CLASS, IdentClass.classOf(t.get(0)));
+      assertEquals(IdentClass.CONST, IdentClass.classOf(t.get(1)));
+      assertEquals(IdentClass.TYPE_SPEC, IdentClass.classOf(t.get(2)));
+      assertEquals(0, IdentClass.classOf(t.get(3))); // x
+      assertEquals(0, IdentClass.classOf(t.get(4))); // ;
+      assertEquals(IdentClass.STRUCT_UNION, IdentClass.classOf(t.get(5)));
+      assertEquals(0, IdentClass.classOf(t.get(6))); // u
+      assertEquals(IdentClass.INLINE, IdentClass.classOf(t.get(8)));
+      assertEquals(IdentClass.NORETURN, IdentClass.classOf(t.get(9)));
+      assertEquals(IdentClass.TYPE_SPEC, IdentClass.classOf(t.get(10)));
+      assertEquals(IdentClass.ASM, IdentClass.classOf(t.get(t.size() - 1)));
+
+      assertTrue(Pcheckers.isStorageClassSpec(t.get(0)));
+      assertTrue(Pcheckers.isTypeQual(t.get(1)));
+      assertTrue(Pcheckers.isFuncSpec(t.get(8)));
+    }
+  }
+
 }
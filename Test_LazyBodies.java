@@ -0,0 +1,82 @@
+package ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import ast.errors.ParseException;
+import ast.main.ParserMain;
+import ast.unit.FunctionDefinition;
+import ast.unit.TranslationUnit;
+
+public class Test_LazyBodies {
+
+  @Test
+  public void testBodiesOnDemand() throws IOException {
+    //@formatter:off
+    StringBuilder sb = new StringBuilder();
+    sb.append(" /*001*/  struct s { int x; };                          \n");
+    sb.append(" /*002*/  int g(int n);                                 \n");
+    sb.append(" /*003*/  int f(struct s *p) {                          \n");
+    sb.append(" /*004*/    int a = p->x;                               \n");
+    sb.append(" /*005*/    { int b = a; if (b) { a = \"str\"[0]; } }   \n");
+    sb.append(" /*006*/    return a + g(a);                            \n");
+    sb.append(" /*007*/  }                                             \n");
+    sb.append(" /*008*/  int g(int n) { return n > 0 ? f(0) : 0; }     \n");
+    sb.append(" /*009*/  int h;                                        \n");
+    //@formatter:on
+
+    ParserMain parser = new ParserMain(sb);
+    parser.setLazyBodies(true);
+    TranslationUnit unit = parser.parseUnit();
+
+    assertEquals(2, unit.countOfFunctionDefinitions());
+    assertEquals(4, unit.getExternalDeclarations().size());
+
+    FunctionDefinition f = unit.getExternalDeclarations().get(2).getFunctionDefinition();
+    FunctionDefinition g = unit.getExternalDeclarations().get(3).getFunctionDefinition();
+    assertEquals(false, f.isBodyParsed());
+    assertEquals(false, g.isBodyParsed());
+
+    assertNotNull(f.getBlock());
+    assertEquals(true, f.isBodyParsed());
+    assertEquals(false, g.isBodyParsed());
+
+    // p, a, b
+    assertEquals(3, f.getLocals().size());
+
+    assertNotNull(g.getBlock());
+    assertEquals(1, g.getLocals().size());
+  }
+
+  @Test
+  public void testBodySeesOnlyEarlierDeclarations() throws IOException {
+    //@formatter:off
+    StringBuilder sb = new StringBuilder();
+    sb.append(" /*001*/  int f(void) { return later; }  \n");
+    sb.append(" /*002*/  int later;                     \n");
+    //@formatter:on
+
+    ParserMain parser = new ParserMain(sb);
+    parser.setLazyBodies(true);
+    TranslationUnit unit = parser.parseUnit();
+
+    FunctionDefinition f = unit.getExternalDeclarations().get(0).getFunctionDefinition();
+
+    // as the eager parser: 'later' is not declared where f is defined.
+    // the body stays skipped, every access fails.
+    for (int i = 0; i < 2; i++) {
+      try {
+        f.getBlock();
+        fail("expect a parse error");
+      } catch (ParseException e) {
+        assertEquals(false, f.isBodyParsed());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,95 @@
+package ast;
+
+import static ast.TestSources.tempSource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import ast.errors.ParseException;
+import ast.main.ParseDaemon;
+
+public class Test_ParseDaemon {
+
+  private String[] serve(ParseDaemon daemon, String requests) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    daemon.serve(new ByteArrayInputStream(requests.getBytes("UTF-8")), out);
+    final String answers = new String(out.toByteArray(), "UTF-8").trim();
+    return answers.isEmpty() ? new String[0] : answers.split("\r?\n");
+  }
+
+  @Test
+  public void testProtocol() throws IOException {
+    final String header = tempSource(".h", "int h(int);\n");
+    final String source = tempSource(".c", "#include \"" + header + "\"\nint a, b;\nint f(void) { return h(a); }\n");
+
+    //@formatter:off
+    String[] answers = serve(new ParseDaemon(0),
+        "stats\n"
+      + "parse " + source + "\n"
+      + "\n"
+      + "stats\n"
+      + "parse " + source + "\n"
+      + "clear\n"
+      + "stats\n"
+      + "quit\n"
+      + "stats\n");
+    //@formatter:on
+
+    assertEquals(6, answers.length);
+    assertEquals("ok 0", answers[0]);
+    assertEquals("ok " + source + " 2 1", answers[1]);
+    assertEquals("ok 1", answers[2]);
+    assertEquals("ok " + source + " 2 1", answers[3]);
+    assertEquals("ok", answers[4]);
+    assertEquals("ok 0", answers[5]);
+  }
+
+  @Test
+  public void testBadRequests() throws IOException {
+    final String broken = tempSource(".c", "int f(void) { return 0;\n");
+
+    //@formatter:off
+    String[] answers = serve(new ParseDaemon(0),
+        "parse\n"
+      + "parse " + broken + "\n"
+      + "stats now\n"
+      + "clear all\n"
+      + "parsefile x.c\n");
+    //@formatter:on
+
+    assertEquals(5, answers.length);
+    assertEquals("error parse needs a filename", answers[0]);
+    assertTrue(answers[1].startsWith("error " + broken + " "));
+    assertEquals("error stats takes no arguments", answers[2]);
+    assertEquals("error clear takes no arguments", answers[3]);
+    assertEquals("error unknown request: parsefile x.c", answers[4]);
+  }
+
+  @Test
+  public void testArgs() {
+    ParseDaemon daemon = ParseDaemon.fromArgs(new String[0]);
+    assertEquals(-1, daemon.getPort());
+
+    daemon = ParseDaemon.fromArgs(new String[] { "128", "--lazy-bodies", "--port", "7070" });
+    assertEquals(7070, daemon.getPort());
+
+    final String[][] bad = { { "-1" }, { "many" }, { "--port" }, { "--port", "0" }, { "--port", "65536" },
+        { "--lazy-bodies", "128" }, { "--verbose" } };
+    for (String[] args : bad) {
+      try {
+        ParseDaemon.fromArgs(args);
+        fail("accepted: " + args[args.length - 1]);
+      } catch (ParseException e) {
+        assertFalse(e.getMessage().isEmpty());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,64 @@
+package ast;
+
+import static ast.TestSources.tempSource;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ast.main.ParserBatch;
+import ast.unit.TranslationUnit;
+
+public class Test_ParserBatch {
+
+  @Test
+  public void testInputOrder() throws IOException {
+    List<String> files = new ArrayList<String>();
+    List<Integer> expect = new ArrayList<Integer>();
+
+    for (int i = 0; i < 16; i++) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("struct s { int x; };\n");
+      for (int j = 0; j <= i; j++) {
+        sb.append("int f" + j + "(struct s *p) { return p->x + \"str\"[0]; }\n");
+      }
+      files.add(tempSource(".c", sb.toString()));
+      expect.add(i + 1);
+    }
+
+    ParserBatch batch = new ParserBatch(4);
+    List<TranslationUnit> units = batch.parseAll(files);
+    batch.shutdown();
+
+    assertEquals(files.size(), units.size());
+    for (int i = 0; i < units.size(); i++) {
+      assertEquals(expect.get(i).intValue(), units.get(i).countOfFunctionDefinitions());
+    }
+  }
+
+  // macros of a unit must not leak into the units parsed beside it
+  @Test
+  public void testMacrosAreNotShared() throws IOException {
+    List<String> files = new ArrayList<String>();
+    for (int i = 0; i < 32; i++) {
+      if (i % 2 == 0) {
+        files.add(tempSource(".c", "#define N 1\nint a[N];\nint f(void) { return a[0]; }\n"));
+      } else {
+        files.add(tempSource(".c", "int N = 2;\nint g(void) { return N; }\n"));
+      }
+    }
+
+    ParserBatch batch = new ParserBatch(4);
+    List<TranslationUnit> units = batch.parseAll(files);
+    batch.shutdown();
+
+    assertEquals(files.size(), units.size());
+    for (TranslationUnit unit : units) {
+      assertEquals(1, unit.countOfFunctionDefinitions());
+    }
+  }
+
+}
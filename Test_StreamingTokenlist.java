@@ -0,0 +1,75 @@
+package ast;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import ast.main.ParserMain;
+import ast.parse.Parse;
+import ast.parse.TokenSource;
+import ast.unit.ExternalDeclaration;
+import ast.unit.ExternalDeclarationConsumer;
+import ast.unit.TranslationUnit;
+import jscan.tokenize.Token;
+
+public class Test_StreamingTokenlist {
+
+  private static class Counter implements ExternalDeclarationConsumer {
+    int declarations;
+    int functions;
+
+    @Override
+    public void consume(ExternalDeclaration ed) {
+      if (ed.isFunctionDefinition()) {
+        functions++;
+      } else {
+        declarations++;
+      }
+    }
+  }
+
+  private StringBuilder source(int count) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("struct s { int x; };\n");
+    sb.append("typedef struct s S;\n");
+    for (int i = 0; i < count; i++) {
+      sb.append("int v" + i + " = (int) 1;\n");
+      sb.append("int f" + i + "(S *p) { return (int) p->x + ((S) { 1 }).x + sizeof(S); }\n");
+    }
+    return sb;
+  }
+
+  @Test
+  public void testSmallWindow() throws IOException {
+    List<Token> tokens = new ParserMain(source(256)).preprocess().getList();
+    final Iterator<Token> it = tokens.iterator();
+
+    TokenSource source = new TokenSource() {
+      @Override
+      public Token next() throws IOException {
+        return it.next();
+      }
+    };
+
+    Counter counter = new Counter();
+    TranslationUnit unit = new Parse(source, 64).parse_unit(counter, false);
+
+    assertEquals(0, unit.getExternalDeclarations().size());
+    assertEquals(2 + 256, counter.declarations);
+    assertEquals(256, counter.functions);
+  }
+
+  @Test
+  public void testParserMain() throws IOException {
+    Counter counter = new Counter();
+    new ParserMain(source(16)).parseUnitStreaming(counter);
+
+    assertEquals(2 + 16, counter.declarations);
+    assertEquals(16, counter.functions);
+  }
+
+}
@@ -1,16 +1,27 @@
 package ast;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Test;
 
+import ast.decls.Declaration;
 import ast.errors.ParseException;
 import ast.main.ParserMain;
 import ast.parse.Parse;
+import ast.symtab.elements.CSymbol;
+import ast.types.CStructType;
+import ast.unit.ExternalDeclaration;
 import ast.unit.TranslationUnit;
 import jscan.Tokenlist;
+import jscan.hashed.Hash_ident;
 
 public class Test_StructFieldAccess {
 
@@ -507,4 +518,51 @@ public class Test_StructFieldAccess {
 
   }
 
+  @Test
+  public void testFieldsOfLargeStruct() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("struct big {\n");
+    for (int i = 0; i < 64; i++) {
+      sb.append("  int f" + i + ";\n");
+    }
+    sb.append("  union { int u0; char u1; };\n");
+    sb.append("  struct { int s0, s1; };\n");
+    sb.append("};\n");
+    sb.append("struct big g;\n");
+    sb.append("int main() {\n");
+    sb.append("  struct big b, *p = &b;\n");
+    sb.append("  b.f0 = p->f63 + b.u0 + p->s1;\n");
+    sb.append("  return p->f31;\n");
+    sb.append("}\n");
+
+    Parse p = new Parse(new ParserMain(sb).preprocess());
+    TranslationUnit unit = p.parse_unit();
+
+    CStructType big = null;
+    for (ExternalDeclaration ed : unit.getExternalDeclarations()) {
+      Declaration decl = ed.getDeclaration();
+      if (decl != null && decl.getVariables() != null) {
+        for (CSymbol sym : decl.getVariables()) {
+          if (sym.getName().getName().equals("g")) {
+            big = sym.getType().getTpStruct();
+          }
+        }
+      }
+    }
+    assertNotNull(big);
+    assertEquals(68, big.getFields().size()); // f0..f63, u0, u1, s0, s1
+
+    assertTrue(big.isHasField("f0"));
+    assertTrue(big.isHasField("f63"));
+    assertTrue(big.isHasField("u1"));
+    assertTrue(big.isHasField("s0"));
+    assertFalse(big.isHasField("f64"));
+    assertFalse(big.isHasField("big"));
+
+    assertEquals("f31", big.findField(Hash_ident.getHashedIdent("f31")).getName().getName());
+    assertEquals("u0", big.findField(Hash_ident.getHashedIdent("u0")).getName().getName());
+    assertEquals("s1", big.findField(Hash_ident.getHashedIdent("s1")).getName().getName());
+    assertNull(big.findField(Hash_ident.getHashedIdent("s2")));
+  }
+
 }
@@ -0,0 +1,46 @@
+package ast;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import ast.errors.ParseException;
+import ast.expr.CExpression;
+import ast.main.ParserMain;
+import ast.unit.FunctionDefinition;
+import ast.unit.TranslationUnit;
+
+public class Test_TypeApplier {
+
+  @Test
+  public void testDeepChain() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("int a;\n");
+    sb.append("int f(void) { return sizeof(a");
+    for (int i = 0; i < 50000; i++) {
+      sb.append(" + a");
+    }
+    sb.append("); }\n");
+
+    TranslationUnit unit = new ParserMain(sb).parseUnit();
+    FunctionDefinition f = unit.getExternalDeclarations().get(1).getFunctionDefinition();
+
+    CExpression size = f.getBlock().getCompound().get(0).getStatement().getExpr();
+    assertEquals(4, size.getCnumber().getClong());
+  }
+
+  @Test(expected = ParseException.class)
+  public void testGetterOfAnotherKind() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("int f(void) { return 1; }\n");
+
+    TranslationUnit unit = new ParserMain(sb).parseUnit();
+    FunctionDefinition f = unit.getExternalDeclarations().get(0).getFunctionDefinition();
+
+    CExpression one = f.getBlock().getCompound().get(0).getStatement().getExpr();
+    one.getSymbol();
+  }
+
+}
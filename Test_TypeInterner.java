@@ -0,0 +1,97 @@
+package ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import ast.main.ParserMain;
+import ast.symtab.elements.CSymbol;
+import ast.types.CArrayType;
+import ast.types.CType;
+import ast.types.CTypeImpl;
+import ast.unit.TranslationUnit;
+
+public class Test_TypeInterner {
+
+  private List<CSymbol> variables(String source) throws IOException {
+    TranslationUnit unit = new ParserMain(new StringBuilder(source)).parseUnit();
+    return unit.getExternalDeclarations().get(0).getDeclaration().getVariables();
+  }
+
+  @Test
+  public void testFunctionTypes() throws IOException {
+    List<CSymbol> vars = variables("int (*a)(int, char*), (*b)(int, char*), (*c)(int, char*, ...), (*d)(int x, char *s);\n");
+    assertEquals(4, vars.size());
+
+    final CType a = vars.get(0).getType().getTpPointer().getPointerTo();
+    final CType b = vars.get(1).getType().getTpPointer().getPointerTo();
+    final CType c = vars.get(2).getType().getTpPointer().getPointerTo();
+    final CType d = vars.get(3).getType().getTpPointer().getPointerTo();
+
+    assertSame(a, b);
+    assertSame(vars.get(0).getType(), vars.get(1).getType());
+    assertNotSame(a, c);
+
+    // the names are kept: the same type, not the same instance
+    assertNotSame(a, d);
+    assertTrue(a.isEqualTo(d));
+  }
+
+  @Test
+  public void testPointerToAndDecay() {
+    final CType p = CTypeImpl.TYPE_INT.pointerTo(false);
+    assertSame(p, CTypeImpl.TYPE_INT.pointerTo(false));
+    assertSame(CTypeImpl.TYPE_INT, p.getTpPointer().getPointerTo());
+
+    final CType cp = CTypeImpl.TYPE_INT.pointerTo(true);
+    assertSame(cp, CTypeImpl.TYPE_INT.pointerTo(true));
+    assertNotSame(p, cp);
+    assertTrue(cp.getTpPointer().isConst());
+
+    final CType arr = new CType(new CArrayType(CTypeImpl.TYPE_INT, 4));
+    assertSame(p, arr.decay());
+    assertSame(CTypeImpl.TYPE_INT, CTypeImpl.TYPE_INT.decay());
+  }
+
+  @Test
+  public void testPointerToFromThreads() throws InterruptedException, ExecutionException {
+    final CType of = new CType(new CArrayType(CTypeImpl.TYPE_CHAR, 8));
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<CType>> futures = new ArrayList<Future<CType>>();
+    for (int i = 0; i < 64; i++) {
+      futures.add(executor.submit(new Callable<CType>() {
+        @Override
+        public CType call() {
+          return of.pointerTo(false);
+        }
+      }));
+    }
+    executor.shutdown();
+
+    final CType first = futures.get(0).get();
+    for (Future<CType> f : futures) {
+      assertSame(first, f.get());
+    }
+  }
+
+  @Test
+  public void testConstPointers() throws IOException {
+    List<CSymbol> vars = variables("int *const a, *const b, *c;\n");
+    assertSame(vars.get(0).getType(), vars.get(1).getType());
+    assertNotSame(vars.get(0).getType(), vars.get(2).getType());
+  }
+
+}
@@ -1,5 +1,7 @@
 package ast;
 
+import static org.junit.Assert.assertEquals;
+
 import java.io.IOException;
 
 import org.junit.Test;
@@ -305,4 +307,34 @@ public class Test_Typedefs {
     TranslationUnit unit = p.parse_unit();
   }
 
+  @Test
+  public void testTypedefShadowedAndRestored() throws IOException {
+    //@formatter:off
+    StringBuilder sb = new StringBuilder();
+    sb.append(" /*001*/  typedef int T;                         \n");
+    sb.append(" /*002*/  int f(void) {                          \n");
+    sb.append(" /*003*/      T a = 1;                           \n");
+    sb.append(" /*004*/      {                                  \n");
+    sb.append(" /*005*/          int T;                         \n");
+    sb.append(" /*006*/          T = a;                         \n");
+    sb.append(" /*007*/          {                              \n");
+    sb.append(" /*008*/              typedef char T;            \n");
+    sb.append(" /*009*/              T c = 'c';                 \n");
+    sb.append(" /*010*/          }                              \n");
+    sb.append(" /*011*/          T = T * 2;                     \n");
+    sb.append(" /*012*/      }                                  \n");
+    sb.append(" /*013*/      T b = a;                           \n");
+    sb.append(" /*014*/      return (T) b;                      \n");
+    sb.append(" /*015*/  }                                      \n");
+    sb.append(" /*016*/  int T2;                                \n");
+    sb.append(" /*017*/  T g = 0;                               \n");
+    //@formatter:on
+
+    Tokenlist tokenlist = getTokenlist(sb);
+
+    Parse p = new Parse(tokenlist);
+    TranslationUnit unit = p.parse_unit();
+    assertEquals(1, unit.countOfFunctionDefinitions());
+  }
+
 }
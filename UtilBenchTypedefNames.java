@@ -0,0 +1,55 @@
+package ast;
+
+import java.io.IOException;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import ast.main.ParserMain;
+import ast.parse.Parse;
+import jscan.Tokenlist;
+
+public class UtilBenchTypedefNames {
+
+  // many typedef-names, and blocks that shadow some of them:
+  // each use of a name is a decl-vs-expression check of the parser.
+  private static String source(int typedefs, int functions) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < typedefs; i++) {
+      sb.append("typedef int t" + i + ";\n");
+    }
+    for (int f = 0; f < functions; f++) {
+      sb.append("int f" + f + "(void) {\n");
+      sb.append("  int s = 0;\n");
+      for (int i = 0; i < typedefs; i += 4) {
+        sb.append("  t" + i + " a" + i + " = (t" + i + ") s;\n");
+        sb.append("  { int t" + i + " = a" + i + "; s += t" + i + "; }\n");
+        sb.append("  s += sizeof(t" + i + ");\n");
+      }
+      sb.append("  return s;\n");
+      sb.append("}\n");
+    }
+    return sb.toString();
+  }
+
+  @Ignore
+  @Test
+  public void test() throws IOException {
+    final String text = source(256, 64);
+    final int warmup = 5;
+    final int rounds = 20;
+
+    long total = 0;
+    for (int r = 0; r < warmup + rounds; r++) {
+      Tokenlist tokenlist = new ParserMain(new StringBuilder(text)).preprocess();
+      long start = System.nanoTime();
+      new Parse(tokenlist).parse_unit();
+      long elapsed = System.nanoTime() - start;
+      if (r >= warmup) {
+        total += elapsed;
+      }
+    }
+
+    System.out.println("typedef-names: " + (total / rounds / 1000) + " us per parse");
+  }
+}
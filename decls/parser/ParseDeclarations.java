@@ -13,6 +13,7 @@ import ast.parse.NullChecker;
 import ast.parse.Parse;
 import ast.symtab.elements.CSymbol;
 import ast.symtab.elements.CSymbolBase;
+import ast.types.CArrayType;
 import ast.types.CType;
 import ast.types.decl.CDecl;
 import ast.types.main.CStorageKind;
@@ -22,16 +23,30 @@ import ast.types.util.TypeMerger;
 
 public class ParseDeclarations {
   private final Parse parser;
+  private Token startLocation;
   private CType basetype;
   private CStorageKind storagespec;
+  private Token firstLocation;
+  private CDecl first;
 
   public ParseDeclarations(Parse parser) {
     this.parser = parser;
   }
 
   public Declaration parse() {
+    final Declaration complete = parseSpecifiersAndDeclarator();
+    if (complete != null) {
+      return complete;
+    }
+    return parseInitDeclarators();
+  }
+
+  /// static-assert, the declaration-specifiers and the first declarator.
+  /// the beginning of a declaration and of a function-definition is the same:
+  /// returns the declaration if it has no declarators, null if the first declarator is parsed.
+  public Declaration parseSpecifiersAndDeclarator() {
 
-    Token startLocation = parser.tok();
+    startLocation = parser.tok();
 
     boolean skip = new ParseStaticAssert(parser).isStaticAssertAndItsOk();
     if (skip) {
@@ -40,39 +55,50 @@ public class ParseDeclarations {
 
     ParseBase pb = new ParseBase(parser);
     basetype = pb.parseBase();
-
     storagespec = pb.getStorageSpec();
-    NullChecker.check(basetype, storagespec); // paranoia
 
     /// this may be struct/union/enum declaration
     ///
     if (parser.tp() == T.T_SEMI_COLON) {
-      Token endLocation = parser.semicolon();
+      return parseTagDeclaration();
+    }
 
-      boolean isStructUnionEnum = basetype.isStrUnion() || basetype.isEnumeration();
-      if (!isStructUnionEnum) {
-        parser.perror("expect struct/union/enum declaration. but was: " + basetype.toString());
-      }
+    firstLocation = parser.tok();
+    first = new ParseDecl(parser).parseDecl();
+    return null;
+  }
 
-      // semicolon after mean: this declaration has no name, no declarator after...
-      // if this aggregate declared without name in function-scope, it NOT change stack-size.
+  public CType getBasetype() {
+    return basetype;
+  }
 
-      final Declaration agregate = new Declaration(startLocation, endLocation, basetype);
-      return agregate;
-    }
+  public CDecl getFirstDeclarator() {
+    return first;
+  }
 
-    List<CSymbol> initDeclaratorList = parseInitDeclaratorList();
+  /// the declaration-specifiers are parsed, and the semicolon is the next.
+  private Declaration parseTagDeclaration() {
     Token endLocation = parser.semicolon();
 
-    final Declaration declaration = new Declaration(startLocation, endLocation, initDeclaratorList);
-    return declaration;
+    boolean isStructUnionEnum = basetype.isStrUnion() || basetype.isEnumeration();
+    if (!isStructUnionEnum) {
+      parser.perror("expect struct/union/enum declaration. but was: " + basetype.toString());
+    }
+
+    // semicolon after mean: this declaration has no name, no declarator after...
+    // if this aggregate declared without name in function-scope, it NOT change stack-size.
+
+    final Declaration agregate = new Declaration(startLocation, endLocation, basetype);
+    return agregate;
   }
 
-  private List<CSymbol> parseInitDeclaratorList() {
-    List<CSymbol> initDeclaratorList = new ArrayList<CSymbol>(0);
+  /// the declaration-specifiers and the first declarator are parsed,
+  /// the rest of the init-declarator-list is the next.
+  public Declaration parseInitDeclarators() {
+    NullChecker.check(basetype, storagespec, first); // paranoia
 
-    CSymbol initDeclarator = parseInitDeclarator();
-    initDeclaratorList.add(initDeclarator);
+    List<CSymbol> initDeclaratorList = new ArrayList<CSymbol>(1);
+    initDeclaratorList.add(finishInitDeclarator(firstLocation, first));
 
     while (parser.tp() == T.T_COMMA) {
       parser.move();
@@ -81,7 +107,10 @@ public class ParseDeclarations {
       initDeclaratorList.add(initDeclaratorSeq);
     }
 
-    return initDeclaratorList;
+    Token endLocation = parser.semicolon();
+
+    final Declaration declaration = new Declaration(startLocation, endLocation, initDeclaratorList);
+    return declaration;
   }
 
   private CSymbol parseInitDeclarator() {
@@ -93,7 +122,11 @@ public class ParseDeclarations {
     Token saved = parser.tok();
 
     CDecl decl = new ParseDecl(parser).parseDecl();
-    CType type = TypeMerger.build(basetype, decl);
+    return finishInitDeclarator(saved, decl);
+  }
+
+  private CSymbol finishInitDeclarator(Token saved, CDecl decl) {
+    CType type = TypeMerger.build(parser.getTypes(), basetype, decl);
 
     if (parser.tp() != T.T_ASSIGN) {
       CSymbolBase symBase = CSymbolBase.SYM_LVAR;
@@ -109,6 +142,12 @@ public class ParseDeclarations {
     }
 
     parser.checkedMove(T.T_ASSIGN);
+
+    // the length is set by the initializer: a type of its own,
+    // the type of a typedef or of a shared header unit is not changed.
+    if (type.isArray() && type.getTpArray().isIncomplete()) {
+      type = new CType(new CArrayType(type.getTpArray().getArrayOf(), type.getTpArray().getArrayLen()));
+    }
     List<Initializer> inits = parseInitializer(type);
 
     if (storagespec == CStorageKind.ST_TYPEDEF) {
@@ -9,10 +9,14 @@ import static ast.expr.CExpressionBase.EFCALL;
 import static ast.expr.CExpressionBase.EPOSTINCDEC;
 import static ast.expr.CExpressionBase.EPREINCDEC;
 import static ast.expr.CExpressionBase.EPRIMARY_GENERIC;
+import static ast.expr.CExpressionBase.EPRIMARY_IDENT;
+import static ast.expr.CExpressionBase.EPRIMARY_NUMBER;
+import static ast.expr.CExpressionBase.EPRIMARY_STRING;
 import static ast.expr.CExpressionBase.ETERNARY;
 import static ast.expr.CExpressionBase.EUNARY;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import jscan.cstrtox.C_strtox;
 import jscan.sourceloc.SourceLocation;
@@ -20,6 +24,9 @@ import jscan.tokenize.Token;
 import ast.decls.Initializer;
 import ast.errors.ParseException;
 import ast.parse.ILocation;
+import ast.parse.PackedLocation;
+import ast.parse.TokenSpelling;
+import ast.parse.TokenSpellings;
 import ast.symtab.elements.CSymbol;
 import ast.symtab.elements.NumericConstant;
 import ast.symtab.elements.StringConstant;
@@ -27,35 +34,41 @@ import ast.types.CStructField;
 import ast.types.CType;
 
 abstract class NodeTemp {
-  private static long iter = 0;
+  // shared between translation-units parsed in parallel
+  private static final AtomicLong iter = new AtomicLong();
 
   public static long gettemp() {
-    return iter++;
+    return iter.getAndIncrement();
   }
 }
 
+/// Expression node.
+/// Children are held directly (no array), and everything that depends on the kind of the node
+/// (condition, initializer-list, field, arguments, constants, symbol) shares one slot.
+/// Location is packed, and materialized on demand.
+/// The getters of the slot check the kind: asked from a node of another kind, they throw.
 public class CExpression implements ILocation {
 
-  private static final int LHS_INDEX = 0;
-  private static final int RHS_INDEX = 1;
-  private static final int CND_INDEX = 2;
-
   private final CExpressionBase base; // what union contains
   private final long tname; // just unique id. for codegen.
-  private final SourceLocation location;
 
   private CType resultType; // what expression doe's after evaluation
-  private final Token token; // operator, position
-  private final CExpression tree[];
-
-  private List<Initializer> initializerList; // (resultType) { initializer-list } compound literal
-  private CStructField field;
-  private List<CExpression> arglist;
-
-  // primary
-  private StringConstant cstring;
-  private NumericConstant cnumber;
-  private CSymbol symbol;
+  private Object token; // operator: the token of the source, its spelling after trim
+  private final long location; // line and column, see PackedLocation
+  private volatile Object file; // the file name, its SourceLocation once materialized
+
+  private final CExpression lhs;
+  private final CExpression rhs;
+
+  // one of, by base:
+  // ETERNARY        - condition
+  // ECOMPLITERAL    - initializer-list, (resultType) { initializer-list }
+  // ECOMPSEL        - field
+  // EFCALL          - arguments
+  // EPRIMARY_IDENT  - symbol
+  // EPRIMARY_NUMBER - number
+  // EPRIMARY_STRING - string
+  private Object payload;
 
   private void assertBaseIsOneOf(CExpressionBase... bases) {
     boolean contains = false;
@@ -73,182 +86,129 @@ public class CExpression implements ILocation {
   public CExpression getLhs() {
     assertBaseIsOneOf(ECOMPSEL, EUNARY, EPREINCDEC, EPOSTINCDEC, EASSIGN, EBINARY, ETERNARY, ECOMMA, ECAST, EFCALL,
         EPRIMARY_GENERIC);
-    return tree[LHS_INDEX];
+    return lhs;
   }
 
   public CExpression getRhs() {
     assertBaseIsOneOf(EASSIGN, EBINARY, ETERNARY, ECOMMA);
-    return tree[RHS_INDEX];
-  }
-
-  private void setLhs(CExpression e) {
-    tree[LHS_INDEX] = e;
-  }
-
-  private void setRhs(CExpression e) {
-    tree[RHS_INDEX] = e;
+    return rhs;
   }
 
   public CExpression getCnd() {
-    assertBaseIsOneOf(ETERNARY);
-    return tree[CND_INDEX];
-  }
-
-  private void setCnd(CExpression condition) {
-    tree[CND_INDEX] = condition;
+    return (CExpression) payloadOf(ETERNARY);
   }
 
-  private CExpression[] emptyTree() {
-    return new CExpression[3];
+  private CExpression(CExpressionBase base, Token token, CExpression lhs, CExpression rhs, Object payload) {
+    this.base = base;
+    this.tname = NodeTemp.gettemp();
+    this.token = token;
+    this.location = PackedLocation.pack(token);
+    this.file = PackedLocation.filename(token);
+    this.lhs = lhs;
+    this.rhs = rhs;
+    this.payload = payload;
   }
 
   // pre-post inc-dec
   public CExpression(CExpressionBase base, Token op, CExpression lhs) {
-    this.base = base;
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(op);
-    this.token = op;
-    this.tree = emptyTree();
-
-    setLhs(lhs);
+    this(base, op, lhs, null, null);
   }
 
+  /// after trim: a new token, a copy of the original one.
   public Token getToken() {
-    return token;
+    if (token instanceof TokenSpelling) {
+      return ((TokenSpelling) token).toToken(getLocation());
+    }
+    return (Token) token;
+  }
+
+  /// the token of the source is replaced with its spelling,
+  /// so that the token-list of the translation-unit may be released.
+  public void trimToken(TokenSpellings spellings) {
+    if (token instanceof Token) {
+      token = spellings.of((Token) token);
+    }
+  }
+
+  private String getTokenValue() {
+    if (token instanceof TokenSpelling) {
+      return ((TokenSpelling) token).getValue();
+    }
+    return ((Token) token).getValue();
   }
 
   // binary, asssign, comma, array-subscript
   public CExpression(CExpressionBase base, CExpression lhs, CExpression rhs, Token token) {
-    this.base = base;
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(token);
-    this.token = token;
-    this.tree = emptyTree();
-
-    setLhs(lhs);
-    setRhs(rhs);
+    this(base, token, lhs, rhs, null);
   }
 
   // unary
   public CExpression(Token op, CExpression lhs) {
-    this.base = CExpressionBase.EUNARY;
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(op);
-    this.token = op;
-    this.tree = emptyTree();
-
-    setLhs(lhs);
+    this(CExpressionBase.EUNARY, op, lhs, null, null);
   }
 
   public CExpression(CType typename, List<Initializer> initializerList, Token token) {
-    this.tname = NodeTemp.gettemp();
-    this.tree = emptyTree();
-    this.location = new SourceLocation(token);
-    this.token = token;
-    this.base = CExpressionBase.ECOMPLITERAL;
+    this(CExpressionBase.ECOMPLITERAL, token, null, null, initializerList);
     this.resultType = typename;
-    this.initializerList = initializerList;
   }
 
   public CExpression(CExpression function, List<CExpression> arguments, Token token) {
-    this.tname = NodeTemp.gettemp();
-    this.tree = emptyTree();
-    this.location = new SourceLocation(token);
-    this.token = token;
-    this.base = CExpressionBase.EFCALL;
-    setLhs(function);
-    this.arglist = arguments;
+    this(CExpressionBase.EFCALL, token, function, null, arguments);
   }
 
   public CExpression(CType typename, CExpression tocast, Token token) {
-    this.tname = NodeTemp.gettemp();
-    this.tree = emptyTree();
-    this.location = new SourceLocation(token);
-    this.token = token;
-    this.base = CExpressionBase.ECAST;
+    this(CExpressionBase.ECAST, token, tocast, null, null);
     this.resultType = typename;
-    setLhs(tocast);
   }
 
   // (*a) -> x
   // a . x
   public CExpression(CExpression postfis, Token operator, CStructField fieldName) {
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(operator);
-    this.tree = emptyTree();
-    this.token = operator;
-    this.base = CExpressionBase.ECOMPSEL;
-
-    setLhs(postfis);
-    this.field = fieldName;
+    this(CExpressionBase.ECOMPSEL, operator, postfis, null, fieldName);
   }
 
   public CExpression(CExpression condition, CExpression branchTrue, CExpression branchFalse, Token token) {
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(token);
-    this.tree = emptyTree();
-    this.token = token;
-    this.base = CExpressionBase.ETERNARY;
-
-    setCnd(condition);
-    setLhs(branchTrue);
-    setRhs(branchFalse);
+    this(CExpressionBase.ETERNARY, token, branchTrue, branchFalse, condition);
   }
 
   public CExpression(CSymbol e, Token token) {
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(token);
-    this.tree = emptyTree();
-    this.token = token;
-    this.base = CExpressionBase.EPRIMARY_IDENT;
-    this.symbol = e;
+    this(CExpressionBase.EPRIMARY_IDENT, token, null, null, e);
   }
 
   public CExpression(C_strtox e, Token token) {
-    e.ev(); // XXX:
+    this(CExpressionBase.EPRIMARY_NUMBER, token, null, null, evalNumber(e));
+  }
 
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(token);
-    this.tree = emptyTree();
-    this.token = token;
-    this.base = CExpressionBase.EPRIMARY_NUMBER;
+  private static NumericConstant evalNumber(C_strtox e) {
+    e.ev(); // XXX:
 
-    NumericConstant number = null;
     if (e.isIntegerKind()) {
-      number = new NumericConstant(e.getClong(), e.getNumtype());
-    } else {
-      number = new NumericConstant(e.getCdouble(), e.getNumtype());
+      return new NumericConstant(e.getClong(), e.getNumtype());
     }
-
-    this.cnumber = number;
+    return new NumericConstant(e.getCdouble(), e.getNumtype());
   }
 
   public CExpression(StringConstant cstring, Token token) {
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(token);
-    this.tree = emptyTree();
-    this.token = token;
-    this.base = CExpressionBase.EPRIMARY_STRING;
-    this.cstring = cstring;
+    this(CExpressionBase.EPRIMARY_STRING, token, null, null, cstring);
   }
 
   public CExpression(CExpression genericSelectionResult, Token token) {
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(token);
-    this.tree = emptyTree();
-    this.token = token;
-    this.base = CExpressionBase.EPRIMARY_GENERIC;
-
-    setLhs(genericSelectionResult);
+    this(CExpressionBase.EPRIMARY_GENERIC, token, genericSelectionResult, null, null);
   }
 
   public CExpression(NumericConstant number, Token from) {
-    this.tname = NodeTemp.gettemp();
-    this.location = new SourceLocation(from);
-    this.tree = emptyTree();
-    this.token = from;
-    this.base = CExpressionBase.EPRIMARY_NUMBER;
-    this.cnumber = number;
+    this(CExpressionBase.EPRIMARY_NUMBER, from, null, null, number);
+  }
+
+  // the getter of a kind is asked only from a node of this kind
+  private Object payloadOf(CExpressionBase kind) {
+    assertBaseIsOneOf(kind);
+    return payload;
+  }
+
+  private void setPayload(CExpressionBase kind, Object value) {
+    assertBaseIsOneOf(kind);
+    this.payload = value;
   }
 
   public CType getResultType() {
@@ -263,44 +223,42 @@ public class CExpression implements ILocation {
     return base;
   }
 
+  @SuppressWarnings("unchecked")
   public List<Initializer> getInitializerList() {
-    return initializerList;
+    return (List<Initializer>) payloadOf(CExpressionBase.ECOMPLITERAL);
   }
 
   public void setInitializerList(List<Initializer> initializerList) {
-    this.initializerList = initializerList;
+    setPayload(CExpressionBase.ECOMPLITERAL, initializerList);
   }
 
   public CStructField getField() {
-    return field;
+    return (CStructField) payloadOf(CExpressionBase.ECOMPSEL);
   }
 
   public CSymbol getSymbol() {
-    return symbol;
+    return (CSymbol) payloadOf(CExpressionBase.EPRIMARY_IDENT);
   }
 
   public void setSymbol(CSymbol symbol) {
-    this.symbol = symbol;
+    setPayload(CExpressionBase.EPRIMARY_IDENT, symbol);
   }
 
+  @SuppressWarnings("unchecked")
   public List<CExpression> getArglist() {
-    return arglist;
+    return (List<CExpression>) payloadOf(CExpressionBase.EFCALL);
   }
 
   public void setArglist(List<CExpression> arglist) {
-    this.arglist = arglist;
+    setPayload(CExpressionBase.EFCALL, arglist);
   }
 
   public long getTname() {
     return tname;
   }
 
-  public CExpression[] getTree() {
-    return tree;
-  }
-
-  private String tokenTos(Token t) {
-    return " " + t.getValue() + " ";
+  private String tokenTos() {
+    return " " + getTokenValue() + " ";
   }
 
   @Override
@@ -309,15 +267,15 @@ public class CExpression implements ILocation {
     switch (base) {
 
     case EASSIGN: {
-      return "(" + getLhs().toString().trim() + tokenTos(getToken()) + getRhs().toString().trim() + ")";
+      return "(" + getLhs().toString().trim() + tokenTos() + getRhs().toString().trim() + ")";
     }
 
     case EBINARY: {
-      return "(" + getLhs().toString() + tokenTos(getToken()) + getRhs().toString() + ")";
+      return "(" + getLhs().toString() + tokenTos() + getRhs().toString() + ")";
     }
 
     case ECOMMA: {
-      return getLhs().toString() + tokenTos(getToken()) + getRhs().toString();
+      return getLhs().toString() + tokenTos() + getRhs().toString();
     }
 
     case ETERNARY: {
@@ -331,11 +289,11 @@ public class CExpression implements ILocation {
     }
 
     case EUNARY: {
-      return "(" + getToken().getValue() + getLhs().toString() + ")";
+      return "(" + getTokenValue() + getLhs().toString() + ")";
     }
 
     case ECOMPSEL: {
-      return "(" + getLhs().toString() + getToken().getValue() + field.getName().getName() + ")";
+      return "(" + getLhs().toString() + getTokenValue() + getField().getName().getName() + ")";
     }
 
     case ECAST: {
@@ -343,6 +301,8 @@ public class CExpression implements ILocation {
     }
 
     case EFCALL: {
+      final List<CExpression> arglist = getArglist();
+
       StringBuilder sb = new StringBuilder();
       sb.append(getLhs().toString() + "(");
 
@@ -360,22 +320,23 @@ public class CExpression implements ILocation {
     }
 
     case EPREINCDEC: {
-      return "(" + getToken().getValue() + getLhs().toString() + ")";
+      return "(" + getTokenValue() + getLhs().toString() + ")";
     }
 
     case EPOSTINCDEC: {
-      return "(" + getLhs().toString() + getToken().getValue() + ")";
+      return "(" + getLhs().toString() + getTokenValue() + ")";
     }
 
     case ECOMPLITERAL: {
-      return "(" + resultType.toString() + ") {" + initializerList.toString() + " }";
+      return "(" + resultType.toString() + ") {" + getInitializerList().toString() + " }";
     }
 
     case EPRIMARY_IDENT: {
-      return symbol.getName().getName();
+      return getSymbol().getName().getName();
     }
 
     case EPRIMARY_NUMBER: {
+      final NumericConstant cnumber = getCnumber();
       if (cnumber.isInteger()) {
         return String.format("%d", cnumber.getClong());
       } else {
@@ -384,7 +345,7 @@ public class CExpression implements ILocation {
     }
 
     case EPRIMARY_STRING: {
-      return cstring.toString();
+      return getCstring().toString();
     }
 
     case EPRIMARY_GENERIC: {
@@ -399,40 +360,58 @@ public class CExpression implements ILocation {
   }
 
   public NumericConstant getCnumber() {
-    return cnumber;
+    return (NumericConstant) payloadOf(CExpressionBase.EPRIMARY_NUMBER);
   }
 
   public void setCnumber(NumericConstant cnumber) {
-    this.cnumber = cnumber;
+    setPayload(CExpressionBase.EPRIMARY_NUMBER, cnumber);
+  }
+
+  public StringConstant getCstring() {
+    return (StringConstant) payloadOf(CExpressionBase.EPRIMARY_STRING);
   }
 
   @Override
   public SourceLocation getLocation() {
-    return location;
+    final SourceLocation at = PackedLocation.located(file, location);
+    if (at != null) {
+      file = at;
+    }
+    return at;
   }
 
   @Override
   public String getLocationToString() {
-    return location.toString();
+    final SourceLocation at = getLocation();
+    return at == null ? "" : at.toString();
   }
 
   @Override
   public int getLocationLine() {
-    return location.getLine();
+    return PackedLocation.getLine(location);
   }
 
   @Override
   public int getLocationColumn() {
-    return location.getColumn();
+    return PackedLocation.getColumn(location);
   }
 
   @Override
   public String getLocationFile() {
-    return location.getFilename();
+    return PackedLocation.filenameOf(file);
+  }
+
+  /// line and column, see PackedLocation. the file is getLocationFile().
+  public long getLocationPacked() {
+    return location;
   }
 
   public boolean isIntegerZero() {
-    return base == CExpressionBase.EPRIMARY_NUMBER && cnumber.isInteger() && cnumber.getClong() == 0;
+    if (base != CExpressionBase.EPRIMARY_NUMBER) {
+      return false;
+    }
+    final NumericConstant cnumber = getCnumber();
+    return cnumber.isInteger() && cnumber.getClong() == 0;
   }
 
   public boolean isModifiableLvalue() {
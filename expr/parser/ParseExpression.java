@@ -35,7 +35,6 @@ import java.util.List;
 
 import jscan.cstrtox.C_strtox;
 import jscan.cstrtox.NumType;
-import jscan.hashed.Hash_ident;
 import jscan.symtab.Ident;
 import jscan.tokenize.T;
 import jscan.tokenize.Token;
@@ -122,12 +121,6 @@ public class ParseExpression {
     return new CExpression(typename, initializerList, saved);
   }
 
-  private static int globtempcnt = 0;
-
-  private String newgloblab() {
-    return String.format("t%d", globtempcnt++);
-  }
-
   // TODO: define in global scope as label
   //
   private CExpression build_strconst(Token saved) {
@@ -137,7 +130,7 @@ public class ParseExpression {
       str = str.substring(1, str.length() - 1);
     }
 
-    final Ident varname = Hash_ident.getHashedIdent(newgloblab());
+    final Ident varname = parser.newGlobalLabel();
     final CArrayType arrtype = new CArrayType(CTypeImpl.TYPE_CHAR, str.length() + 1);
 
     final CExpression initexpr = new CExpression(new StringConstant(saved.getStrconstant(), str), saved);
@@ -340,10 +333,10 @@ public class ParseExpression {
   private CExpression e_cast() {
 
     if (parser.tp() == T_LEFT_PAREN) {
-      ParseState state = new ParseState(parser);
 
       Token peek = parser.peek();
       if (parser.isDeclSpecStart(peek)) {
+        ParseState state = new ParseState(parser);
 
         Token lparen = parser.lparen();
         CType typeName = parser.parseTypename();
@@ -357,9 +350,9 @@ public class ParseExpression {
           final CExpression tocast = e_cast();
           return build_cast(parser, typeName, tocast, lparen);
         }
-      }
 
-      parser.restoreState(state);
+        parser.restoreState(state);
+      }
 
     }
 
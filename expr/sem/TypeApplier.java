@@ -38,13 +38,15 @@ import static jscan.tokenize.T.T_RSHIFT;
 import static jscan.tokenize.T.T_TILDE;
 import static jscan.tokenize.T.T_TIMES;
 import static jscan.tokenize.T.T_XOR;
+
+import java.util.Arrays;
+
 import jscan.cstrtox.NumType;
 import jscan.tokenize.Token;
 import ast.errors.ParseException;
 import ast.expr.CExpression;
 import ast.expr.CExpressionBase;
 import ast.parse.NullChecker;
-import ast.types.CPointerType;
 import ast.types.CType;
 import ast.types.CTypeImpl;
 
@@ -56,17 +58,121 @@ public abstract class TypeApplier {
     }
   }
 
-  public static void applytype(CExpression e, TypeApplierStage stage) {
+  private static final TypeApplierStage[] STAGES = TypeApplierStage.values();
 
-    final CExpressionBase base = e.getBase();
+  // work-stack entry: node, and (stage << STAGE_SHIFT) | index of the next child to visit
+  private static final int STAGE_SHIFT = 8;
+  private static final int CHILD_MASK = (1 << STAGE_SHIFT) - 1;
+
+  /// post-order, with an explicit stack: the depth of the expression does not grow the java stack.
+  /// a node which already has a type is skipped with its subtree.
+  public static void applytype(CExpression e, TypeApplierStage stage) {
     if (e.getResultType() != null) {
       return;
     }
 
-    if (base == EASSIGN) {
-      applytype(e.getLhs(), TypeApplierStage.assign_lhs);
-      applytype(e.getRhs(), TypeApplierStage.assign_rhs);
+    CExpression[] nodes = new CExpression[16];
+    int[] states = new int[16];
+    int sp = 0;
+
+    nodes[sp] = e;
+    states[sp] = stage.ordinal() << STAGE_SHIFT;
+    sp++;
+
+    while (sp > 0) {
+      final int top = sp - 1;
+      final CExpression node = nodes[top];
+      final int state = states[top];
+      final int next = state & CHILD_MASK;
+
+      if (next == 0 && node.getResultType() != null) {
+        nodes[--sp] = null;
+        continue;
+      }
+
+      final CExpressionBase base = node.getBase();
+      if (next < arity(base)) {
+        states[top] = state + 1;
+
+        if (sp == nodes.length) {
+          nodes = Arrays.copyOf(nodes, sp * 2);
+          states = Arrays.copyOf(states, sp * 2);
+        }
+        nodes[sp] = child(node, next);
+        states[sp] = childStage(base, next).ordinal() << STAGE_SHIFT;
+        sp++;
+        continue;
+      }
+
+      nodes[--sp] = null;
+      applynode(node, STAGES[state >>> STAGE_SHIFT]);
+    }
+  }
+
+  private static int arity(CExpressionBase base) {
+    switch (base) {
+    case ETERNARY:
+      return 3;
+    case EASSIGN:
+    case EBINARY:
+    case ECOMMA:
+      return 2;
+    case EUNARY:
+    case ECOMPSEL:
+    case EFCALL:
+    case EPREINCDEC:
+    case EPOSTINCDEC:
+      return 1;
+    default:
+      return 0;
+    }
+  }
+
+  // in the order of evaluation: condition of the ternary goes first
+  private static CExpression child(CExpression e, int index) {
+    if (e.getBase() == ETERNARY) {
+      if (index == 0) {
+        return e.getCnd();
+      }
+      return index == 1 ? e.getLhs() : e.getRhs();
+    }
+    return index == 0 ? e.getLhs() : e.getRhs();
+  }
+
+  private static TypeApplierStage childStage(CExpressionBase base, int index) {
+    switch (base) {
+    case EASSIGN:
+      return index == 0 ? TypeApplierStage.assign_lhs : TypeApplierStage.assign_rhs;
+    case EBINARY:
+      return index == 0 ? TypeApplierStage.binary_lhs : TypeApplierStage.binary_rhs;
+    case ECOMMA:
+      return index == 0 ? TypeApplierStage.comma_lhs : TypeApplierStage.comma_rhs;
+    case ETERNARY:
+      if (index == 0) {
+        return TypeApplierStage.tern_cnd;
+      }
+      return index == 1 ? TypeApplierStage.tern_true : TypeApplierStage.tern_false;
+    case EUNARY:
+      return TypeApplierStage.unary_operand;
+    case ECOMPSEL:
+      return TypeApplierStage.compsel_postfix;
+    case EFCALL:
+      return TypeApplierStage.fcall_function;
+    case EPREINCDEC:
+      return TypeApplierStage.preincdec_operand;
+    case EPOSTINCDEC:
+      return TypeApplierStage.postincdec_operand;
+    default:
+      throw new ParseException("unimpl. base: " + base.toString());
+    }
+  }
+
+  // children are already typed
+  private static void applynode(CExpression e, TypeApplierStage stage) {
+
+    final CExpressionBase base = e.getBase();
 
+    if (base == EASSIGN) {
       assertType(e.getLhs());
       assertType(e.getRhs());
 
@@ -74,21 +180,13 @@ public abstract class TypeApplier {
     }
 
     else if (base == EBINARY) {
-
-      applytype(e.getLhs(), TypeApplierStage.binary_lhs);
-      applytype(e.getRhs(), TypeApplierStage.binary_rhs);
-
       assertType(e.getLhs());
       assertType(e.getRhs());
 
       applyBinary(e);
-
     }
 
     else if (base == ECOMMA) {
-      applytype(e.getLhs(), TypeApplierStage.comma_lhs);
-      applytype(e.getRhs(), TypeApplierStage.comma_rhs);
-
       assertType(e.getLhs());
       assertType(e.getRhs());
 
@@ -96,10 +194,6 @@ public abstract class TypeApplier {
     }
 
     else if (base == ETERNARY) {
-      applytype(e.getCnd(), TypeApplierStage.tern_cnd);
-      applytype(e.getLhs(), TypeApplierStage.tern_true);
-      applytype(e.getRhs(), TypeApplierStage.tern_false);
-
       assertType(e.getCnd());
       assertType(e.getLhs());
       assertType(e.getRhs());
@@ -108,8 +202,6 @@ public abstract class TypeApplier {
     }
 
     else if (base == EUNARY) {
-      applytype(e.getLhs(), TypeApplierStage.unary_operand);
-
       assertType(e.getLhs());
       applyUnary(e);
     }
@@ -133,22 +225,16 @@ public abstract class TypeApplier {
     }
 
     else if (base == ECOMPSEL) {
-      applytype(e.getLhs(), TypeApplierStage.compsel_postfix);
-
       assertType(e.getLhs());
       e.setResultType(e.getField().getType());
     }
 
     else if (base == EFCALL) {
-      applytype(e.getLhs(), TypeApplierStage.fcall_function);
-
       assertType(e.getLhs());
       applyFcall(e);
     }
 
     else if (base == EPREINCDEC) {
-      applytype(e.getLhs(), TypeApplierStage.preincdec_operand);
-
       assertType(e.getLhs());
 
       // TODO: more checks
@@ -156,8 +242,6 @@ public abstract class TypeApplier {
     }
 
     else if (base == EPOSTINCDEC) {
-      applytype(e.getLhs(), TypeApplierStage.postincdec_operand);
-
       assertType(e.getLhs());
 
       // TODO: more checks
@@ -510,15 +594,8 @@ public abstract class TypeApplier {
     NullChecker.check(inputExpr);
     final CType origType = inputExpr.getResultType();
 
-    if (origType.isArray()) {
-      CType arrtype = origType.getTpArray().getArrayOf();
-      CType ptrtype = new CType(new CPointerType(arrtype, false));
-      inputExpr.setResultType(ptrtype);
-    }
-
-    if (origType.isFunction()) {
-      CType ptrtype = new CType(new CPointerType(origType, false));
-      inputExpr.setResultType(ptrtype);
+    if (origType.isArray() || origType.isFunction()) {
+      inputExpr.setResultType(origType.decay());
     }
 
   }
@@ -529,8 +606,7 @@ public abstract class TypeApplier {
     final CType typeOfNode = inputExpr.getResultType();
 
     if (typeOfNode.isFunction()) {
-      CType ptrtype = new CType(new CPointerType(typeOfNode, false));
-      inputExpr.setResultType(ptrtype);
+      inputExpr.setResultType(typeOfNode.pointerTo(false));
     }
 
   }
@@ -541,7 +617,7 @@ public abstract class TypeApplier {
   }
 
   private static CType genPtrTo(CType lhsRT) {
-    return new CType(new CPointerType(lhsRT, false));
+    return lhsRT.pointerTo(false);
   }
 
   private static void errorUnknownUnaryOperator(Token operator) {
@@ -0,0 +1,205 @@
+package ast.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import ast.errors.ParseException;
+import ast.parse.HeaderUnitCache;
+import ast.parse.NullChecker;
+import ast.unit.TranslationUnit;
+
+/// Resident parser: the prelude, keywords and header units stay warm between requests.
+///
+/// One request per line, one answer per line:
+///   parse <filename>   ok <filename> <declarations> <functions> | error <filename> <message>
+///   stats              ok <cached header units>
+///   clear              ok
+///   quit
+///
+/// Requests come from stdin, or from clients of a loopback TCP port, one client at a time:
+/// there are no unix-domain sockets in the JDK this is built for.
+/// For a client 'quit' ends its connection, not the daemon.
+///
+public class ParseDaemon {
+
+  public static final int DEFAULT_MAX_HEADER_UNITS = 4096;
+
+  public static final String USAGE = "usage: ParseDaemon [<max-header-units>] [--lazy-bodies] [--port <port>]";
+
+  private final HeaderUnitCache headerUnits;
+  private boolean lazyBodies;
+  private int port = -1;
+
+  public ParseDaemon(int maxHeaderUnits) {
+    this.headerUnits = new HeaderUnitCache(maxHeaderUnits);
+  }
+
+  public void setLazyBodies(boolean lazyBodies) {
+    this.lazyBodies = lazyBodies;
+  }
+
+  /// the loopback port given to main(), -1 is stdin.
+  public int getPort() {
+    return port;
+  }
+
+  /// serve until 'quit' or end of input.
+  public void serve(InputStream in, OutputStream out) throws IOException {
+    NullChecker.check(in, out);
+
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, "UTF-8"));
+
+    // the first request must not pay for the prelude
+    PredefinedTokens.getPrelude();
+
+    for (;;) {
+      final String line = reader.readLine();
+      if (line == null) {
+        break;
+      }
+      final String request = line.trim();
+      if (request.isEmpty()) {
+        continue;
+      }
+      if (request.equals("quit")) {
+        break;
+      }
+
+      writer.println(handle(request));
+      writer.flush();
+    }
+
+    writer.flush();
+  }
+
+  /// serve the clients of the socket one by one, until it is closed.
+  public void serve(ServerSocket server) throws IOException {
+    NullChecker.check(server);
+
+    while (!server.isClosed()) {
+      final Socket client = server.accept();
+      try {
+        serve(client.getInputStream(), client.getOutputStream());
+      } finally {
+        client.close();
+      }
+    }
+  }
+
+  public String handle(String request) {
+    NullChecker.check(request);
+
+    final String trimmed = request.trim();
+    final int space = trimmed.indexOf(' ');
+    final String command = space < 0 ? trimmed : trimmed.substring(0, space);
+    final String argument = space < 0 ? "" : trimmed.substring(space + 1).trim();
+
+    if (command.equals("stats")) {
+      if (!argument.isEmpty()) {
+        return "error stats takes no arguments";
+      }
+      return "ok " + headerUnits.size();
+    }
+    if (command.equals("clear")) {
+      if (!argument.isEmpty()) {
+        return "error clear takes no arguments";
+      }
+      headerUnits.clear();
+      return "ok";
+    }
+    if (command.equals("parse")) {
+      if (argument.isEmpty()) {
+        return "error parse needs a filename";
+      }
+      return parse(argument);
+    }
+    return "error unknown request: " + trimmed;
+  }
+
+  private String parse(String filename) {
+    try {
+      ParserMain parser = new ParserMain(filename);
+      parser.setHeaderUnits(headerUnits);
+      parser.setLazyBodies(lazyBodies);
+
+      TranslationUnit unit = parser.parseUnit();
+      return "ok " + filename + " " + unit.countOfDeclarations() + " " + unit.countOfFunctionDefinitions();
+    } catch (Exception e) {
+      return "error " + filename + " " + String.valueOf(e.getMessage()).replace('\n', ' ');
+    }
+  }
+
+  /// the daemon for the arguments of main(), ParseException with the usage on a bad one.
+  public static ParseDaemon fromArgs(String[] args) {
+    NullChecker.check(args);
+
+    int maxHeaderUnits = DEFAULT_MAX_HEADER_UNITS;
+    boolean lazyBodies = false;
+    int port = -1;
+
+    for (int i = 0; i < args.length; i++) {
+      final String arg = args[i];
+      if (arg.equals("--lazy-bodies")) {
+        lazyBodies = true;
+      } else if (i == 0 && !arg.startsWith("--")) {
+        maxHeaderUnits = parseNumber(arg, 0, Integer.MAX_VALUE);
+      } else if (arg.equals("--port") && i + 1 < args.length) {
+        port = parseNumber(args[++i], 1, 65535);
+      } else {
+        throw new ParseException(USAGE);
+      }
+    }
+
+    ParseDaemon daemon = new ParseDaemon(maxHeaderUnits);
+    daemon.setLazyBodies(lazyBodies);
+    daemon.port = port;
+    return daemon;
+  }
+
+  private static int parseNumber(String arg, int min, int max) {
+    int n = 0;
+    try {
+      n = Integer.parseInt(arg);
+    } catch (NumberFormatException e) {
+      throw new ParseException(USAGE);
+    }
+    if (n < min || n > max) {
+      throw new ParseException(USAGE);
+    }
+    return n;
+  }
+
+  public static void main(String[] args) throws IOException {
+    ParseDaemon daemon = null;
+    try {
+      daemon = fromArgs(args);
+    } catch (ParseException e) {
+      System.err.println(e.getMessage());
+      System.exit(2);
+      return;
+    }
+
+    if (daemon.port < 0) {
+      daemon.serve(System.in, System.out);
+      return;
+    }
+
+    // loopback only: the daemon reads any file it is asked for
+    ServerSocket server = new ServerSocket(daemon.port, 16, InetAddress.getByName(null));
+    try {
+      daemon.serve(server);
+    } finally {
+      server.close();
+    }
+  }
+
+}
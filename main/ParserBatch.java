@@ -0,0 +1,148 @@
+package ast.main;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ast.errors.ParseException;
+import ast.parse.HeaderUnitCache;
+import ast.parse.NullChecker;
+import ast.unit.TranslationUnit;
+
+/// Parse a list of files, each file is a separate translation-unit with its own parser.
+/// The preprocessor stage is serialized (jscan hashed tables are process-wide),
+/// parsing itself runs concurrently on the given executor.
+/// A unit is preprocessed only when no other unit is being parsed, see HashedLock.TABLES.
+public class ParserBatch {
+
+  public interface Callback {
+    public void onUnit(int index, String filename, TranslationUnit unit);
+
+    public void onError(int index, String filename, Throwable error);
+  }
+
+  private final ExecutorService executor;
+  private final boolean isOwnExecutor;
+
+  // optional: headers shared by all files of the batch
+  private HeaderUnitCache headerUnits;
+
+  public ParserBatch(int nthreads) {
+    if (nthreads <= 0) {
+      throw new ParseException("batch parser: threads count must be positive");
+    }
+    this.executor = Executors.newFixedThreadPool(nthreads);
+    this.isOwnExecutor = true;
+  }
+
+  public ParserBatch(ExecutorService executor) {
+    NullChecker.check(executor);
+    this.executor = executor;
+    this.isOwnExecutor = false;
+  }
+
+  /// result is in the same order as input.
+  public List<TranslationUnit> parseAll(List<String> filenames) throws IOException {
+    List<Future<TranslationUnit>> futures = submitAll(filenames, null);
+    List<TranslationUnit> result = new ArrayList<TranslationUnit>(futures.size());
+
+    for (Future<TranslationUnit> f : futures) {
+      result.add(await(f));
+    }
+    return result;
+  }
+
+  /// callback is invoked from worker threads, as soon as each unit is ready.
+  /// returns when all units are done.
+  public void parseAll(List<String> filenames, Callback callback) {
+    NullChecker.check(callback);
+
+    List<Future<TranslationUnit>> futures = submitAll(filenames, callback);
+    for (Future<TranslationUnit> f : futures) {
+      try {
+        f.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ParseException("batch parser: interrupted");
+      } catch (ExecutionException e) {
+        // already reported through callback
+      }
+    }
+  }
+
+  public void setHeaderUnits(HeaderUnitCache headerUnits) {
+    this.headerUnits = headerUnits;
+  }
+
+  public void shutdown() {
+    if (isOwnExecutor) {
+      executor.shutdown();
+    }
+  }
+
+  private List<Future<TranslationUnit>> submitAll(List<String> filenames, final Callback callback) {
+    NullChecker.check(filenames);
+
+    List<Future<TranslationUnit>> futures = new ArrayList<Future<TranslationUnit>>(filenames.size());
+    for (int i = 0; i < filenames.size(); i++) {
+      final int index = i;
+      final String filename = filenames.get(i);
+      NullChecker.check(filename);
+
+      futures.add(executor.submit(new Callable<TranslationUnit>() {
+        @Override
+        public TranslationUnit call() throws Exception {
+          return parseOne(index, filename, callback);
+        }
+      }));
+    }
+    return futures;
+  }
+
+  private TranslationUnit parseOne(int index, String filename, Callback callback) throws IOException {
+    if (callback == null) {
+      return newParser(filename).parseUnit();
+    }
+
+    TranslationUnit unit = null;
+    try {
+      unit = newParser(filename).parseUnit();
+    } catch (Throwable e) {
+      callback.onError(index, filename, e);
+      throw new ParseException("batch parser: " + filename + ": " + e.getMessage(), e);
+    }
+
+    callback.onUnit(index, filename, unit);
+    return unit;
+  }
+
+  private ParserMain newParser(String filename) {
+    ParserMain parser = new ParserMain(filename);
+    parser.setHeaderUnits(headerUnits);
+    return parser;
+  }
+
+  private TranslationUnit await(Future<TranslationUnit> f) throws IOException {
+    try {
+      return f.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ParseException("batch parser: interrupted");
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ParseException("batch parser: " + String.valueOf(cause), cause);
+    }
+  }
+
+}
@@ -5,18 +5,24 @@ import java.util.ArrayList;
 import java.util.List;
 
 import ast.errors.ParseException;
+import ast.parse.HashedLock;
+import ast.parse.HeaderUnitCache;
 import ast.parse.InitKeywords;
 import ast.parse.NullChecker;
 import ast.parse.Parse;
+import ast.parse.PreludeSnapshot;
+import ast.parse.StreamingTokenlist;
+import ast.parse.TokenSource;
+import ast.unit.ExternalDeclarationConsumer;
 import ast.unit.TranslationUnit;
+import ast.unit.arena.AstArenaBuilder;
+import ast.unit.arena.AstView;
 import jscan.Tokenlist;
 import jscan.fio.FileWrapper;
 import jscan.hashed.Hash_all;
 import jscan.hashed.Hash_stream;
 import jscan.preprocess.Scan;
-import jscan.sourceloc.SourceLocation;
 import jscan.tokenize.Stream;
-import jscan.tokenize.T;
 import jscan.tokenize.Token;
 
 public class ParserMain implements ParserMainApi {
@@ -25,6 +31,12 @@ public class ParserMain implements ParserMainApi {
   private final StringBuilder sourceFromString;
   private final String filename;
 
+  // optional: headers parsed once for several files
+  private HeaderUnitCache headerUnits;
+
+  // optional: skip function bodies, parse them on demand
+  private boolean lazyBodies;
+
   public ParserMain(StringBuilder sourceFromString) {
     this.isFromFile = false;
     this.sourceFromString = sourceFromString;
@@ -40,25 +52,101 @@ public class ParserMain implements ParserMainApi {
   @Override
   public Tokenlist preprocess() throws IOException {
 
-    // TODO: twice? here and in parser. think.
-    InitKeywords.initIdentMap();
+    // the preprocessor works on the process-wide hashed tables,
+    // translation-units from different threads are preprocessed one by one,
+    // and not while other units are parsed.
+    HashedLock.TABLES.writeLock().lock();
+    try {
+      synchronized (HashedLock.LOCK) {
 
-    if (isFromFile) {
-      ParserInternal conf = new ParserInternal(ParserInternal.PREPROCESS_FILE_INPUT | ParserInternal.APPLY_STR_CONCAT
-          | ParserInternal.PREPEND_PREDEFINED_BUFFER, filename);
-      return conf.preprocess();
-    }
+        // TODO: twice? here and in parser. think.
+        InitKeywords.initIdentMap();
 
-    ParserInternal conf = new ParserInternal(ParserInternal.PREPROCESS_STRING_INPUT | ParserInternal.APPLY_STR_CONCAT,
-        sourceFromString);
-    return conf.preprocess();
+        if (isFromFile) {
+          ParserInternal conf = new ParserInternal(fileInputFlags(), filename);
+          return conf.preprocess();
+        }
+
+        ParserInternal conf = new ParserInternal(ParserInternal.PREPROCESS_STRING_INPUT
+            | ParserInternal.APPLY_STR_CONCAT, sourceFromString);
+        return conf.preprocess();
+      }
+    } finally {
+      HashedLock.TABLES.writeLock().unlock();
+    }
 
   }
 
   @Override
   public Parse initiateParse() throws IOException {
     Tokenlist list = preprocess();
-    return new Parse(list);
+
+    // the predefined prelude is prepended to files, and its declarations are the same each time.
+    if (isFromFile) {
+      Parse parser = new Parse(list, PredefinedTokens.getPrelude());
+      if (headerUnits != null) {
+        parser.setHeaderUnits(headerUnits, filename);
+      }
+      parser.setLazyBodies(lazyBodies);
+      return parser;
+    }
+
+    Parse parser = new Parse(list);
+    parser.setLazyBodies(lazyBodies);
+    return parser;
+  }
+
+  /// the preprocessor runs interleaved with the parser, and only a bounded window
+  /// of preprocessed tokens is kept by the parser.
+  /// the declarations are given to the consumer, and are not collected.
+  ///
+  /// the bound is on the preprocessed side only: jscan tokenizes each source file
+  /// as a whole, and the scanner is given the complete raw token-list of the main file,
+  /// so the heap still grows with the size of the file (not with the size of its tree).
+  ///
+  /// the preprocessor runs until the last token is parsed, so the write lock of the hashed
+  /// tables is held for the whole parse: no other unit is preprocessed or parsed meanwhile.
+  @Override
+  public TranslationUnit parseUnitStreaming(ExternalDeclarationConsumer consumer) throws IOException {
+    NullChecker.check(consumer);
+
+    HashedLock.TABLES.writeLock().lock();
+    try {
+      synchronized (HashedLock.LOCK) {
+
+        // the prelude is parsed from the clean state, before this unit is started.
+        final PreludeSnapshot prelude = isFromFile ? PredefinedTokens.getPrelude() : null;
+
+        InitKeywords.initIdentMap();
+
+        Parse parser = null;
+        if (isFromFile) {
+          ParserInternal conf = new ParserInternal(fileInputFlags(), filename);
+          parser = new Parse(conf.stream(), StreamingTokenlist.DEFAULT_CAPACITY, prelude);
+        } else {
+          ParserInternal conf = new ParserInternal(ParserInternal.PREPROCESS_STRING_INPUT
+              | ParserInternal.APPLY_STR_CONCAT, sourceFromString);
+          parser = new Parse(conf.stream(), StreamingTokenlist.DEFAULT_CAPACITY);
+        }
+
+        return parser.parse_unit(consumer, false);
+      }
+    } finally {
+      HashedLock.TABLES.writeLock().unlock();
+    }
+  }
+
+  public void setHeaderUnits(HeaderUnitCache headerUnits) {
+    this.headerUnits = headerUnits;
+  }
+
+  public void setLazyBodies(boolean lazyBodies) {
+    this.lazyBodies = lazyBodies;
+  }
+
+  private int fileInputFlags() {
+    return ParserInternal.PREPROCESS_FILE_INPUT | ParserInternal.APPLY_STR_CONCAT
+        | ParserInternal.PREPEND_PREDEFINED_BUFFER;
   }
 
   @Override
@@ -67,6 +155,22 @@ public class ParserMain implements ParserMainApi {
     return p.parse_unit();
   }
 
+  /// the unit is parsed into the object tree as usual, which is then compacted into the arena.
+  /// peak memory is that of parseUnit(), the saving is only in what is kept afterwards:
+  /// expressions, statements and declarations become arrays, types and symbols stay objects.
+  @Override
+  public AstView parseUnitToArena() throws IOException {
+    return AstArenaBuilder.build(parseUnit());
+  }
+
+  @Override
+  public TranslationUnit parseUnit(ExternalDeclarationConsumer consumer, boolean retain) throws IOException {
+    NullChecker.check(consumer);
+
+    Parse p = initiateParse();
+    return p.parse_unit(consumer, retain);
+  }
+
   // details.
   //
   class ParserInternal {
@@ -159,44 +263,64 @@ public class ParserMain implements ParserMainApi {
       return new Tokenlist(input);
     }
 
+    // the scanner feeds the str-concat stage directly, there is no list between them.
+    // the raw input and the final token-list are both in the heap until the parse,
+    // only stream() with parseUnitStreaming keeps the preprocessed side bounded.
     private List<Token> getInput() throws IOException {
+      final List<Token> input = getInputInternal();
+      return StrConcat.drain(newSource(input), input.size());
+    }
 
-      if (isFlag(APPLY_STR_CONCAT)) {
-        return new StrConcat().preprocessInput(getInputInternal());
+    /// preprocessed tokens one by one, nothing is materialized after the scanner.
+    public TokenSource stream() throws IOException {
+      if (isFlag(PREPROCESS_FILE_INPUT)) {
+        FileWrapper fileWrapper = new FileWrapper(filename);
+        fileWrapper.assertIsExists();
+        fileWrapper.assertIsFile();
       }
-
-      return preprocessNoStrConcat(getInputInternal());
+      return newSource(getInputInternal());
     }
 
-    private List<Token> preprocessNoStrConcat(List<Token> input) throws IOException {
-      List<Token> clean = new ArrayList<Token>(0);
-      Scan s = new Scan(input);
-      for (;;) {
-        Token t = s.get();
-        clean.add(t);
-        if (t.ofType(T.TOKEN_EOF)) {
-          break;
-        }
+    private TokenSource newSource(List<Token> input) {
+      final Scan scan = new Scan(input);
+
+      if (isFlag(APPLY_STR_CONCAT)) {
+        return new StrConcat(scan);
       }
-      return clean;
+
+      return new TokenSource() {
+        @Override
+        public Token next() throws IOException {
+          return scan.get();
+        }
+      };
     }
 
     /// predefined? + (string | file)
     private List<Token> getInputInternal() throws IOException {
-      List<Token> result = new ArrayList<Token>();
+      final List<Token> predefined = isFlag(PREPEND_PREDEFINED_BUFFER) ? PredefinedTokens.get() : null;
 
-      if (isFlag(PREPEND_PREDEFINED_BUFFER)) {
-        result.addAll(tokenizePredefined());
-      }
+      List<Token> main = null;
       if (isFlag(PREPROCESS_STRING_INPUT)) {
-        List<Token> stringInputList = new Stream(filename, source.toString()).getTokenlist();
-        result.addAll(stringInputList);
+        main = new Stream(filename, source.toString()).getTokenlist();
+
+        // the fresh stream is owned by this unit, given to the scanner as is
+        if (predefined == null) {
+          return main;
+        }
       }
       if (isFlag(PREPROCESS_FILE_INPUT)) {
-        List<Token> fileInputList = Hash_stream.getHashedStream(filename).getTokenlist();
-        result.addAll(fileInputList);
+        // the hashed stream is shared with the #include machinery, never given away
+        main = Hash_stream.getHashedStream(filename).getTokenlist();
+        if (predefined == null) {
+          return new ArrayList<Token>(main);
+        }
       }
 
+      // shared, tokenized once per process
+      List<Token> result = new ArrayList<Token>(predefined.size() + main.size());
+      result.addAll(predefined);
+      result.addAll(main);
       return result;
     }
 
@@ -204,28 +328,6 @@ public class ParserMain implements ParserMainApi {
       return (flag & f) == f;
     }
 
-    private List<Token> tokenizePredefined() {
-
-      final String builtinFname = "<built-in>";
-      final SourceLocation location = new SourceLocation(builtinFname, 0, 0);
-
-      List<Token> predefined = new Stream(builtinFname, PredefinedBuffer.getPredefinedBuffer()).getTokenlist();
-      List<Token> clean = new ArrayList<Token>();
-
-      // TODO: move this logic to Stream.class?
-      // special stream-markers, and EOF doesn't need here.
-      // but location new and the same for all stream
-      for (Token t : predefined) {
-        if (t.typeIsSpecialStreamMarks()) {
-          continue;
-        }
-        t.setLocation(location);
-        clean.add(t);
-      }
-
-      return clean;
-    }
-
   }
 
 }
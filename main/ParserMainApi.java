@@ -3,7 +3,9 @@ package ast.main;
 import java.io.IOException;
 
 import ast.parse.Parse;
+import ast.unit.ExternalDeclarationConsumer;
 import ast.unit.TranslationUnit;
+import ast.unit.arena.AstView;
 import jscan.Tokenlist;
 
 public interface ParserMainApi {
@@ -14,4 +16,10 @@ public interface ParserMainApi {
 
   public TranslationUnit parseUnit() throws IOException;
 
+  public AstView parseUnitToArena() throws IOException;
+
+  public TranslationUnit parseUnit(ExternalDeclarationConsumer consumer, boolean retain) throws IOException;
+
+  public TranslationUnit parseUnitStreaming(ExternalDeclarationConsumer consumer) throws IOException;
+
 }
@@ -0,0 +1,104 @@
+package ast.main;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ast.parse.HashedLock;
+import ast.parse.InitKeywords;
+import ast.parse.Parse;
+import ast.parse.PreludeSnapshot;
+import jscan.hashed.Hash_all;
+import jscan.sourceloc.SourceLocation;
+import jscan.tokenize.Stream;
+import jscan.tokenize.T;
+import jscan.tokenize.Token;
+
+/// Tokens of the predefined buffer, tokenized once per process.
+/// The list is shared by all translation-units: neither list nor tokens may be modified.
+public abstract class PredefinedTokens {
+
+  public static final String BUILTIN_FNAME = "<built-in>";
+
+  private static List<Token> tokens = null;
+  private static volatile PreludeSnapshot prelude = null;
+
+  public static List<Token> get() {
+    synchronized (HashedLock.LOCK) {
+      if (tokens == null) {
+        tokens = Collections.unmodifiableList(tokenize());
+      }
+      return tokens;
+    }
+  }
+
+  /// symbols, typedefs and tags of the prelude, parsed once.
+  public static PreludeSnapshot getPrelude() throws IOException {
+    final PreludeSnapshot parsed = prelude;
+    if (parsed != null) {
+      return parsed;
+    }
+
+    // the prelude is parsed from cleared tables
+    HashedLock.TABLES.writeLock().lock();
+    try {
+      synchronized (HashedLock.LOCK) {
+        if (prelude == null) {
+          prelude = parsePrelude();
+        }
+        return prelude;
+      }
+    } finally {
+      HashedLock.TABLES.writeLock().unlock();
+    }
+  }
+
+  private static PreludeSnapshot parsePrelude() throws IOException {
+
+    // the prelude is guarded by #ifndef, and must be preprocessed from the clean state,
+    // exactly as it is preprocessed in front of each translation-unit.
+    Hash_all.clearAll();
+    InitKeywords.initIdentMap();
+
+    List<Token> input = new ArrayList<Token>(get());
+    input.addAll(new Stream(BUILTIN_FNAME, "\n").getTokenlist());
+
+    List<Token> clean = StrConcat.preprocessInput(input);
+
+    int tokenCount = 0;
+    for (Token t : clean) {
+      if (t.ofType(T.TOKEN_EOF) || t.ofType(T.TOKEN_STREAMBEGIN) || t.ofType(T.TOKEN_STREAMEND)) {
+        continue;
+      }
+      tokenCount++;
+    }
+
+    return new Parse(clean).parse_prelude(tokenCount);
+  }
+
+  private static List<Token> tokenize() {
+
+    // keywords must be hashed before the stream is built.
+    InitKeywords.initIdentMap();
+
+    final SourceLocation location = new SourceLocation(BUILTIN_FNAME, 0, 0);
+
+    List<Token> predefined = new Stream(BUILTIN_FNAME, PredefinedBuffer.getPredefinedBuffer()).getTokenlist();
+    List<Token> clean = new ArrayList<Token>(predefined.size());
+
+    // TODO: move this logic to Stream.class?
+    // special stream-markers, and EOF doesn't need here.
+    // but location new and the same for all stream
+    for (Token t : predefined) {
+      if (t.typeIsSpecialStreamMarks()) {
+        continue;
+      }
+      t.setLocation(location);
+      clean.add(t);
+    }
+
+    return clean;
+  }
+
+}
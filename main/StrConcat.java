@@ -8,78 +8,74 @@ import jscan.preprocess.Scan;
 import jscan.tokenize.T;
 import jscan.tokenize.Token;
 import ast.errors.ParseException;
+import ast.parse.NullChecker;
+import ast.parse.TokenSource;
 
-public class StrConcat {
+/// Concatenation of adjacent string-literals, as a streaming stage over the preprocessor:
+/// each token is pulled from the scanner only when it is asked.
+/// Memory is bounded only if the consumer is streaming too: drain() keeps every token.
+public class StrConcat implements TokenSource {
 
-  public List<Token> preprocessInput(List<Token> input) throws IOException {
-    List<Token> clean = new ArrayList<Token>(0);
-    Scan s = new Scan(input);
+  private final Scan scan;
 
-    List<Token> strings = new ArrayList<Token>(0);
-    for (;;) {
-      Token t = s.get();
-      if (t.ofType(T.TOKEN_EOF)) {
-
-        // maybe strings are before EOF
-        if (!strings.isEmpty()) {
-          clean.add(concatStrings(strings));
-          strings = new ArrayList<Token>(0);
-        }
-
-        // add EOF marker, and go out.
-        clean.add(t);
-        break;
-      }
+  // the token which ended the run of strings, it is given next.
+  private Token pending;
 
-      // collect all strings, this, and all after this...
-      if (t.ofType(T.TOKEN_STRING)) {
-        strings.add(t);
-        continue;
-      } else {
-
-        // merge string-list, add new string token, and add current token
-        if (!strings.isEmpty()) {
-          clean.add(concatStrings(strings));
-          strings = new ArrayList<Token>(0);
-
-          clean.add(t);
-          continue;
-        }
+  public StrConcat(Scan scan) {
+    NullChecker.check(scan);
+    this.scan = scan;
+  }
 
-        // there is no strings, just push current token
-        clean.add(t);
+  /// the whole input, preprocessed and concatenated into a new list.
+  public static List<Token> preprocessInput(List<Token> input) throws IOException {
+    return drain(new StrConcat(new Scan(input)), input.size());
+  }
 
+  /// all tokens of the source, with EOF.
+  public static List<Token> drain(TokenSource source, int sizeHint) throws IOException {
+    List<Token> clean = new ArrayList<Token>(sizeHint);
+    for (;;) {
+      Token t = source.next();
+      clean.add(t);
+      if (t.ofType(T.TOKEN_EOF)) {
+        break;
       }
     }
     return clean;
   }
 
-  private Token concatStrings(List<Token> strings) {
-    if (strings.isEmpty()) {
-      throw new ParseException("empty strings list");
+  @Override
+  public Token next() throws IOException {
+    if (pending != null) {
+      Token t = pending;
+      pending = null;
+      return t;
     }
 
-    StringBuilder sb = new StringBuilder();
-    Token head = null;
+    Token head = scan.get();
+    if (!head.ofType(T.TOKEN_STRING)) {
+      return head;
+    }
 
-    for (Token t : strings) {
-      if (head == null) {
-        head = t;
+    // collect all strings, this, and all after this...
+    StringBuilder sb = null;
+    for (;;) {
+      Token t = scan.get();
+      if (!t.ofType(T.TOKEN_STRING)) {
+        pending = t;
+        break;
       }
-
-      final String strvalue = t.getValue();
-      boolean isStrOk = strvalue.startsWith("\"") && strvalue.endsWith("\"");
-      if (!isStrOk) {
-        throw new ParseException("error str-concat");
+      if (sb == null) {
+        sb = new StringBuilder();
+        appendString(sb, head);
       }
-
-      final String res = strvalue.substring(1, strvalue.length() - 1);
-      sb.append(res);
+      appendString(sb, t);
     }
 
-    // paranoia.
-    if (head == null) {
-      throw new ParseException("something wrong...");
+    // single string, nothing to merge
+    if (sb == null) {
+      checkString(head);
+      return head;
     }
 
     Token r = new Token(head);
@@ -88,4 +84,19 @@ public class StrConcat {
     return r;
   }
 
+  private void appendString(StringBuilder sb, Token t) {
+    checkString(t);
+
+    final String strvalue = t.getValue();
+    sb.append(strvalue, 1, strvalue.length() - 1);
+  }
+
+  private void checkString(Token t) {
+    final String strvalue = t.getValue();
+    boolean isStrOk = strvalue.length() >= 2 && strvalue.startsWith("\"") && strvalue.endsWith("\"");
+    if (!isStrOk) {
+      throw new ParseException("error str-concat");
+    }
+  }
+
 }
@@ -0,0 +1,18 @@
+package ast.parse;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/// jscan keeps hashed idents, streams and macros in process-wide tables.
+/// everything that creates or clears hashed entries must hold this lock,
+/// so that several translation-units may be parsed from different threads.
+public abstract class HashedLock {
+
+  public static final Object LOCK = new Object();
+
+  /// the tables are cleared before each translation-unit is preprocessed.
+  /// preprocessing holds the write lock, and the parsers of other units hold the read lock:
+  /// the tables are never cleared under a running parser.
+  /// take it before LOCK, and do not preprocess while holding the read lock.
+  public static final ReentrantReadWriteLock TABLES = new ReentrantReadWriteLock();
+
+}
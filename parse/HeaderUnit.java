@@ -0,0 +1,93 @@
+package ast.parse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.symtab.elements.CSymbol;
+import ast.unit.ExternalDeclaration;
+import jscan.symtab.Ident;
+
+/// Declarations, file-scope symbols and tags of one run of header tokens.
+/// Built once, then imported by each translation-unit which contains the same preprocessed tokens.
+public class HeaderUnit {
+
+  private final long key;
+  private final int tokenCount;
+
+  // read-only once the unit is shared
+  private List<ExternalDeclaration> declarations;
+  private Map<Ident, CSymbol> symbols;
+  private Map<Ident, CSymbol> tags;
+
+  // false if the header depends on the including file, or may be changed by it later.
+  private boolean isCacheable;
+
+  public HeaderUnit(long key, int tokenCount) {
+    this.key = key;
+    this.tokenCount = tokenCount;
+    this.declarations = new ArrayList<ExternalDeclaration>();
+    this.symbols = new LinkedHashMap<Ident, CSymbol>();
+    this.tags = new LinkedHashMap<Ident, CSymbol>();
+    this.isCacheable = true;
+  }
+
+  public void addDeclaration(ExternalDeclaration ed) {
+    declarations.add(ed);
+  }
+
+  public void addSymbol(Ident key, CSymbol sym) {
+    symbols.put(key, sym);
+  }
+
+  public void addTag(Ident key, CSymbol sym) {
+    tags.put(key, sym);
+  }
+
+  public long getKey() {
+    return key;
+  }
+
+  public int getTokenCount() {
+    return tokenCount;
+  }
+
+  public List<ExternalDeclaration> getDeclarations() {
+    return declarations;
+  }
+
+  public Map<Ident, CSymbol> getSymbols() {
+    return symbols;
+  }
+
+  public Map<Ident, CSymbol> getTags() {
+    return tags;
+  }
+
+  public boolean isCacheable() {
+    return isCacheable;
+  }
+
+  public void setCacheable(boolean isCacheable) {
+    this.isCacheable = isCacheable;
+  }
+
+  void markShared() {
+    declarations = Collections.unmodifiableList(declarations);
+    symbols = Collections.unmodifiableMap(symbols);
+    tags = Collections.unmodifiableMap(tags);
+
+    for (ExternalDeclaration ed : declarations) {
+      ed.setShared();
+    }
+    for (CSymbol sym : symbols.values()) {
+      sym.setShared();
+    }
+    for (CSymbol sym : tags.values()) {
+      sym.setShared();
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+package ast.parse;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.errors.ParseException;
+import jscan.tokenize.Token;
+
+/// Header units shared between translation-units, keyed by the hash of their preprocessed tokens.
+/// If bounded, the least recently used unit is evicted.
+public class HeaderUnitCache {
+
+  private final Map<Long, HeaderUnit> units;
+
+  public HeaderUnitCache() {
+    this(0);
+  }
+
+  /// maxUnits: zero is unbounded.
+  public HeaderUnitCache(final int maxUnits) {
+    if (maxUnits < 0) {
+      throw new ParseException("header units: capacity must not be negative");
+    }
+
+    this.units = new LinkedHashMap<Long, HeaderUnit>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, HeaderUnit> eldest) {
+        return maxUnits > 0 && size() > maxUnits;
+      }
+    };
+  }
+
+  public synchronized HeaderUnit get(long key, int tokenCount) {
+    HeaderUnit unit = units.get(key);
+    if (unit != null && unit.getTokenCount() == tokenCount) {
+      return unit;
+    }
+    return null;
+  }
+
+  /// from here the declarations of the unit are shared by other translation-units.
+  public synchronized void put(HeaderUnit unit) {
+    if (!unit.isCacheable()) {
+      return;
+    }
+    unit.markShared();
+    units.put(unit.getKey(), unit);
+  }
+
+  public synchronized int size() {
+    return units.size();
+  }
+
+  public synchronized void clear() {
+    units.clear();
+  }
+
+  /// key of a run of tokens which follows the runs with the given context.
+  public static long withContext(long context, long tokensHash) {
+    return (context * 0x100000001b3L) ^ tokensHash;
+  }
+
+  // FNV-1a over token types and values
+  public static long hashTokens(List<Token> list, int begin, int end) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = begin; i < end; i++) {
+      final Token t = list.get(i);
+      h = (h ^ t.getType().ordinal()) * 0x100000001b3L;
+
+      final String value = t.getValue();
+      if (value == null) {
+        continue;
+      }
+      for (int c = 0; c < value.length(); c++) {
+        h = (h ^ value.charAt(c)) * 0x100000001b3L;
+      }
+    }
+    return h;
+  }
+
+}
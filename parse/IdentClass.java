@@ -0,0 +1,122 @@
+package ast.parse;
+
+import ast.symtab.IdentMap;
+import jscan.symtab.Ident;
+import jscan.tokenize.T;
+import jscan.tokenize.Token;
+
+/// Keywords classified once: each keyword has a mask of the classes it belongs to,
+/// so that a predicate is one lookup and one mask test instead of a chain of comparisons.
+public abstract class IdentClass {
+
+  public static final int STORAGE_CLASS = 1 << 0;
+  public static final int TYPE_SPEC = 1 << 1;
+  public static final int CONST = 1 << 2;
+  public static final int VOLATILE = 1 << 3;
+  public static final int RESTRICT = 1 << 4;
+  public static final int INLINE = 1 << 5;
+  public static final int NORETURN = 1 << 6;
+  public static final int ENUM = 1 << 7;
+  public static final int STRUCT_UNION = 1 << 8;
+  public static final int STATIC_ASSERT = 1 << 9;
+  public static final int ATTRIBUTE_GNUC = 1 << 10;
+  public static final int ASM = 1 << 11;
+
+  public static final int TYPE_QUAL = CONST | VOLATILE | RESTRICT;
+  public static final int FUNC_SPEC = INLINE | NORETURN;
+
+  // without typedef-names, they are resolved through the symbol-table
+  public static final int DECL_SPEC_START = STORAGE_CLASS | TYPE_SPEC | TYPE_QUAL | FUNC_SPEC | ENUM
+      | STRUCT_UNION | STATIC_ASSERT;
+
+  // open-addressed by the hash of the spelling, which the string caches: a probe is an array load
+  // and a compare. the table does not depend on which hashed ident a token refers to,
+  // it is the same before and after Hash_all.clearAll().
+  private static final int TABLE_SIZE = 256; // power of two, more than four times the keywords
+  private static final String[] names = new String[TABLE_SIZE];
+  private static final int[] masks = new int[TABLE_SIZE];
+
+  //@formatter:off
+  static {
+    put(IdentMap.static_ident          , STORAGE_CLASS);
+    put(IdentMap.extern_ident          , STORAGE_CLASS);
+    put(IdentMap.auto_ident            , STORAGE_CLASS);
+    put(IdentMap.register_ident        , STORAGE_CLASS);
+    put(IdentMap.typedef_ident         , STORAGE_CLASS);
+
+    put(IdentMap.void_ident            , TYPE_SPEC);
+    put(IdentMap.char_ident            , TYPE_SPEC);
+    put(IdentMap.short_ident           , TYPE_SPEC);
+    put(IdentMap.int_ident             , TYPE_SPEC);
+    put(IdentMap.long_ident            , TYPE_SPEC);
+    put(IdentMap.float_ident           , TYPE_SPEC);
+    put(IdentMap.double_ident          , TYPE_SPEC);
+    put(IdentMap.signed_ident          , TYPE_SPEC);
+    put(IdentMap.unsigned_ident        , TYPE_SPEC);
+    put(IdentMap._Bool_ident           , TYPE_SPEC);
+    put(IdentMap._Complex_ident        , TYPE_SPEC);
+
+    put(IdentMap.const_ident           , CONST);
+    put(IdentMap.__const___ident       , CONST);
+    put(IdentMap.__const_ident         , CONST);
+    put(IdentMap.volatile_ident        , VOLATILE);
+    put(IdentMap.__volatile___ident    , VOLATILE);
+    put(IdentMap.__volatile_ident      , VOLATILE);
+    put(IdentMap.restrict_ident        , RESTRICT);
+    put(IdentMap.__restrict___ident    , RESTRICT);
+    put(IdentMap.__restrict_ident      , RESTRICT);
+
+    put(IdentMap.inline_ident          , INLINE);
+    put(IdentMap.__inline_ident        , INLINE);
+    put(IdentMap.__inline___ident      , INLINE);
+    put(IdentMap._Noreturn_ident       , NORETURN);
+
+    put(IdentMap.enum_ident            , ENUM);
+    put(IdentMap.struct_ident          , STRUCT_UNION);
+    put(IdentMap.union_ident           , STRUCT_UNION);
+    put(IdentMap._Static_assert_ident  , STATIC_ASSERT);
+
+    put(IdentMap.__attribute___ident   , ATTRIBUTE_GNUC);
+    put(IdentMap.__attribute_ident     , ATTRIBUTE_GNUC);
+    put(IdentMap.asm_ident             , ASM);
+    put(IdentMap.__asm___ident         , ASM);
+    put(IdentMap.__asm_ident           , ASM);
+  }
+  //@formatter:on
+
+  private static int slot(String name) {
+    final int h = name.hashCode();
+    return (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+  }
+
+  private static void put(Ident id, int mask) {
+    final String name = id.getName();
+    int i = slot(name);
+    while (names[i] != null && !names[i].equals(name)) {
+      i = (i + 1) & (TABLE_SIZE - 1);
+    }
+    names[i] = name;
+    masks[i] |= mask;
+  }
+
+  public static int classOf(Token what) {
+    if (!what.ofType(T.TOKEN_IDENT)) {
+      return 0;
+    }
+    final String name = what.getValue();
+    for (int i = slot(name);; i = (i + 1) & (TABLE_SIZE - 1)) {
+      final String k = names[i];
+      if (k == null) {
+        return 0;
+      }
+      if (k == name || k.equals(name)) {
+        return masks[i];
+      }
+    }
+  }
+
+  public static boolean is(Token what, int mask) {
+    return (classOf(what) & mask) != 0;
+  }
+
+}
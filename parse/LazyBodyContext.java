@@ -0,0 +1,55 @@
+package ast.parse;
+
+import java.util.List;
+
+import ast.errors.ParseException;
+import ast.symtab.FlatSymtab;
+import ast.symtab.elements.CSymbol;
+import jscan.symtab.Ident;
+import jscan.tokenize.Token;
+
+/// Shared by the lazy function bodies of one translation-unit.
+/// Keeps the token-list, and the symbol-tables of the file scope:
+/// each body is parsed against the file scope as it was where the function is defined.
+public class LazyBodyContext {
+
+  private final Parse origin;
+  private final List<Token> tokens;
+  private final FlatSymtab<Ident, CSymbol> symbols;
+  private final FlatSymtab<Ident, CSymbol> tags;
+  private boolean isUnitParsed;
+
+  public LazyBodyContext(Parse origin, List<Token> tokens, FlatSymtab<Ident, CSymbol> symbols,
+      FlatSymtab<Ident, CSymbol> tags) {
+    NullChecker.check(origin, tokens, symbols, tags);
+
+    this.origin = origin;
+    this.tokens = tokens;
+    this.symbols = symbols;
+    this.tags = tags;
+  }
+
+  /// tokens of the body [begin, end), terminated by EOF.
+  public List<Token> getTokens() {
+    return tokens;
+  }
+
+  /// string-literal labels must stay unique inside the translation-unit.
+  public Parse getOrigin() {
+    return origin;
+  }
+
+  /// the symbol-tables are not changed after this.
+  public void setUnitParsed() {
+    this.isUnitParsed = true;
+  }
+
+  /// file scope at the marks taken where the function is defined.
+  public PreludeSnapshot getFileScope(int symbolsMark, int tagsMark) {
+    if (!isUnitParsed) {
+      throw new ParseException("lazy function body: the translation-unit is not parsed yet");
+    }
+    return new PreludeSnapshot(symbols.freezeFileScope(symbolsMark), tags.freezeFileScope(tagsMark), 0);
+  }
+
+}
@@ -0,0 +1,88 @@
+package ast.parse;
+
+import jscan.sourceloc.SourceLocation;
+import jscan.tokenize.Token;
+
+/// Line and column of a source location packed into a long.
+/// Nodes keep the long and the file name, which is shared with the tokens of the file,
+/// SourceLocation is materialized on demand, once: the node keeps it in place of the file name.
+/// There is no table of files: nothing outlives the nodes, and nothing is locked.
+public abstract class PackedLocation {
+
+  public static final long NONE = -1L;
+
+  // line:32 | column:32, the line is not negative, so a packed location is never NONE
+  private static final int LINE_SHIFT = 32;
+  private static final long COLUMN_MASK = (1L << LINE_SHIFT) - 1;
+
+  public static long pack(Token t) {
+    if (t == null) {
+      return NONE;
+    }
+    return pack(t.getLocation());
+  }
+
+  public static long pack(SourceLocation location) {
+    if (location == null) {
+      return NONE;
+    }
+    return pack(location.getLine(), location.getColumn());
+  }
+
+  public static long pack(int line, int column) {
+    final long l = line < 0 ? 0 : line;
+    final long c = column < 0 ? 0 : column;
+    return (l << LINE_SHIFT) | c;
+  }
+
+  public static String filename(Token t) {
+    if (t == null) {
+      return null;
+    }
+    return filename(t.getLocation());
+  }
+
+  public static String filename(SourceLocation location) {
+    if (location == null) {
+      return null;
+    }
+    return location.getFilename();
+  }
+
+  public static SourceLocation unpack(String filename, long packed) {
+    if (packed == NONE) {
+      return null;
+    }
+    return new SourceLocation(filename, getLine(packed), getColumn(packed));
+  }
+
+  public static int getLine(long packed) {
+    if (packed == NONE) {
+      return 0;
+    }
+    return (int) (packed >>> LINE_SHIFT);
+  }
+
+  public static int getColumn(long packed) {
+    if (packed == NONE) {
+      return 0;
+    }
+    return (int) (packed & COLUMN_MASK);
+  }
+
+  /// the file slot of a node: its file name, replaced by the SourceLocation once it is materialized.
+  public static SourceLocation located(Object slot, long packed) {
+    if (slot instanceof SourceLocation) {
+      return (SourceLocation) slot;
+    }
+    return unpack((String) slot, packed);
+  }
+
+  public static String filenameOf(Object slot) {
+    if (slot instanceof SourceLocation) {
+      return ((SourceLocation) slot).getFilename();
+    }
+    return (String) slot;
+  }
+
+}
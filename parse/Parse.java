@@ -4,61 +4,120 @@ import static jscan.tokenize.T.TOKEN_EOF;
 import static jscan.tokenize.T.TOKEN_IDENT;
 import static jscan.tokenize.T.T_SEMI_COLON;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map.Entry;
 
 import jscan.Tokenlist;
+import jscan.hashed.Hash_ident;
+import jscan.sourceloc.SourceLocation;
 import jscan.symtab.Ident;
 import jscan.tokenize.T;
 import jscan.tokenize.Token;
 import ast.errors.ParseErrors;
 import ast.errors.ParseException;
-import ast.symtab.Symtab;
+import ast.symtab.FlatSymtab;
+import ast.symtab.SymtabApi;
 import ast.symtab.elements.CSymbol;
 import ast.symtab.elements.CSymbolBase;
 import ast.types.CType;
 import ast.types.decl.CDecl;
 import ast.types.parser.ParseBase;
 import ast.types.parser.ParseDecl;
+import ast.types.util.TypeInterner;
 import ast.types.util.TypeMerger;
 import ast.unit.ExternalDeclaration;
+import ast.unit.ExternalDeclarationConsumer;
 import ast.unit.FunctionDefinition;
 import ast.unit.TranslationUnit;
+import ast.unit.parser.LazyFunctionBody;
 import ast.unit.parser.ParseExternal;
 
 public class Parse {
 
   // main thing's
-  private final Tokenlist tokenlist;
+  private final TokenCursor tokenlist;
   private Token tok;
 
   // need for labels, also for binding local variable's
   private FunctionDefinition currentFn;
 
   // symbol-tables
-  private Symtab<Ident, CSymbol> symbols;
-  private Symtab<Ident, CSymbol> tags;
+  private FlatSymtab<Ident, CSymbol> symbols;
+  private TypedefNameCache typedefNames;
+  private FlatSymtab<Ident, CSymbol> tags;
 
   // location, error-handling
-  private String lastloc;
-  private List<Token> ringBuffer;
+  private Token lastlocTok; // rendered on demand
+  private RingBuf ringBuffer;
   private Token prevtok;
 
+  // labels for string-literals, unique inside translation-unit
+  private int globtempcnt;
+
+  // canonical pointer and array types of this translation-unit
+  private TypeInterner types;
+
+  // header units: shared between translation-units, recorded while a header is parsed
+  private HeaderUnitCache headerUnits;
+  private String mainFilename;
+  private HeaderUnit recording;
+  private long headerContext; // keys of the header runs seen so far in this unit
+
+  // lazy function bodies: skipped by brace matching, parsed on demand
+  private boolean lazyBodies;
+  private LazyBodyContext lazyContext;
+  private Parse labelsOwner;
+
   public Parse(List<Token> tokens) {
-    this.tokenlist = new Tokenlist(tokens);
+    this.tokenlist = new TokenlistCursor(new Tokenlist(tokens));
     initParser();
   }
 
   public Parse(Tokenlist tokenlist) {
-    this.tokenlist = tokenlist;
+    this.tokenlist = new TokenlistCursor(tokenlist);
     initParser();
   }
 
-  public Symtab<Ident, CSymbol> getSymbols() {
+  // tokens are pulled on demand, and only a bounded window is kept:
+  // header units and lazy bodies need the whole list, and are turned off.
+  public Parse(TokenSource source, int capacity) {
+    this.tokenlist = new StreamingTokenlist(source, capacity);
+    initParser();
+  }
+
+  public Parse(TokenSource source, int capacity, PreludeSnapshot prelude) {
+    NullChecker.check(prelude);
+
+    this.tokenlist = new StreamingTokenlist(source, capacity);
+    initParser(prelude);
+    skipPrelude(prelude.getTokenCount());
+  }
+
+  // the token-list starts with the prelude which is already parsed:
+  // begin with its symbols, and skip its tokens.
+  public Parse(Tokenlist tokenlist, PreludeSnapshot prelude) {
+    NullChecker.check(prelude);
+
+    this.tokenlist = new TokenlistCursor(tokenlist);
+    initParser(prelude);
+    skipPrelude(prelude.getTokenCount());
+  }
+
+  // the body of a function, skipped by the lazy mode.
+  // the file scope is the one where the function is defined.
+  public Parse(List<Token> tokens, LazyBodyContext context, PreludeSnapshot fileScope) {
+    NullChecker.check(context, fileScope);
+
+    this.tokenlist = new TokenlistCursor(new Tokenlist(tokens));
+    this.labelsOwner = context.getOrigin();
+    initParser(fileScope);
+  }
+
+  public SymtabApi<Ident, CSymbol> getSymbols() {
     return symbols;
   }
 
-  public Symtab<Ident, CSymbol> getTags() {
+  public SymtabApi<Ident, CSymbol> getTags() {
     return tags;
   }
 
@@ -93,10 +152,18 @@ public class Parse {
       currentFn.addLocal(sym);
     }
 
+    if (recording != null && symbols.isFileScope()) {
+      recording.addSymbol(key, sym);
+    }
+
     symbols.addsym(key, sym);
   }
 
   public void defineTag(Ident key, CSymbol sym) {
+    if (recording != null && tags.isFileScope()) {
+      recording.addTag(key, sym);
+    }
+
     tags.addsym(key, sym);
   }
 
@@ -109,15 +176,15 @@ public class Parse {
   }
 
   public CSymbol getTagFromCurrentScope(Ident name) {
-    return tags.getsymFromCurrentScope(name);
+    return checkHeaderReference(tags.getsymFromCurrentScope(name));
   }
 
   public CSymbol getSym(Ident name) {
-    return symbols.getsym(name);
+    return checkHeaderReference(symbols.getsym(name));
   }
 
   public CSymbol getTag(Ident name) {
-    return tags.getsym(name);
+    return checkHeaderReference(tags.getsym(name));
   }
 
   //TODO:SEMANTIC
@@ -136,25 +203,69 @@ public class Parse {
   // TODO:SEMANTIC
 
   private void initParser() {
-    InitKeywords.initIdentMap();
+    initParser(null);
+  }
+
+  private void initParser(PreludeSnapshot prelude) {
+    synchronized (HashedLock.LOCK) {
+      InitKeywords.initIdentMap();
+    }
     initDefaults();
-    initScopes();
+    initScopes(prelude);
     move();
   }
 
   private void initDefaults() {
     this.currentFn = null;
-    this.ringBuffer = new ArrayList<Token>(0);
-    this.lastloc = "";
+    this.ringBuffer = new RingBuf();
+    this.lastlocTok = null;
+    this.globtempcnt = 0;
+    this.types = new TypeInterner();
+  }
+
+  private void initScopes(PreludeSnapshot prelude) {
+    if (prelude == null) {
+      this.symbols = new FlatSymtab<Ident, CSymbol>();
+      this.tags = new FlatSymtab<Ident, CSymbol>();
+    } else {
+      this.symbols = new FlatSymtab<Ident, CSymbol>(prelude.getSymbols());
+      this.tags = new FlatSymtab<Ident, CSymbol>(prelude.getTags());
+    }
+    this.typedefNames = new TypedefNameCache(symbols);
   }
 
-  private void initScopes() {
-    this.symbols = new Symtab<Ident, CSymbol>();
-    this.tags = new Symtab<Ident, CSymbol>();
+  private void skipPrelude(int count) {
+    for (int i = 0; i < count; i++) {
+      final boolean isBuiltin = tok.getLocation() != null && tok.getLocation().getLine() == 0;
+      if (isEof() || !isBuiltin) {
+        perror("internal error: token-list does not start with the prelude");
+      }
+      move();
+    }
   }
 
   public String getLastLoc() {
-    return lastloc;
+    return lastlocTok == null ? "" : lastlocTok.loc();
+  }
+
+  public Token getLastLocTok() {
+    return lastlocTok;
+  }
+
+  public Ident newGlobalLabel() {
+    if (labelsOwner != null) {
+      return labelsOwner.newGlobalLabel();
+    }
+
+    // labels are unique only inside translation-unit, they cannot be shared.
+    if (recording != null) {
+      recording.setCacheable(false);
+    }
+
+    final String name = String.format("t%d", globtempcnt++);
+    synchronized (HashedLock.LOCK) {
+      return Hash_ident.getHashedIdent(name);
+    }
   }
 
   public Token getPrevtok() {
@@ -165,7 +276,7 @@ public class Parse {
     this.prevtok = prevtok;
   }
 
-  public List<Token> getRingBuffer() {
+  public RingBuf getRingBuffer() {
     return ringBuffer;
   }
 
@@ -191,12 +302,9 @@ public class Parse {
 
   private void addLoc() {
 
-    if (ringBuffer.size() >= 230) {
-      ringBuffer.remove(0);
-    }
     ringBuffer.add(tok);
 
-    lastloc = (prevtok == null ? tok.loc() : prevtok.loc());
+    lastlocTok = (prevtok == null ? tok : prevtok);
     prevtok = tok;
   }
 
@@ -206,8 +314,8 @@ public class Parse {
 
     StringBuilder sb = new StringBuilder();
     sb.append("error: " + m + "\n");
-    sb.append("  --> " + lastloc + "\n\n");
-    sb.append(RingBuf.ringBufferToStringLines(ringBuffer) + "\n");
+    sb.append("  --> " + getLastLoc() + "\n\n");
+    sb.append(ringBuffer.toStringLines() + "\n");
 
     throw new ParseException(sb.toString());
   }
@@ -216,8 +324,8 @@ public class Parse {
 
     StringBuilder sb = new StringBuilder();
     sb.append("warning: " + m + "\n");
-    sb.append("  --> " + lastloc + "\n\n");
-    sb.append(RingBuf.ringBufferToStringLines(ringBuffer) + "\n");
+    sb.append("  --> " + getLastLoc() + "\n\n");
+    sb.append(ringBuffer.toStringLines() + "\n");
 
     //System.out.println(sb.toString());
   }
@@ -303,31 +411,14 @@ public class Parse {
     return checkedMove(T_SEMI_COLON);
   }
 
-  //@formatter:off
   public boolean isDeclSpecStart() {
-    return Pcheckers.isStorageClassSpec(tok)
-        || Pcheckers.isTypeSpec(tok)
-        || Pcheckers.isTypeQual(tok)
-        || Pcheckers.isFuncSpec(tok)
-        || Pcheckers.isEnumSpecStart(tok)
-        || Pcheckers.isStructOrUnionSpecStart(tok)
-        || Pcheckers.isStaticAssert(tok)
-        || isTypedefName(tok());
-  }
-  
+    return isDeclSpecStart(tok);
+  }
+
   // this one need for cast expression and compound literal
-  // XXX : fix
   public boolean isDeclSpecStart(Token what) {
-    return Pcheckers.isStorageClassSpec(what)
-        || Pcheckers.isTypeSpec(what)
-        || Pcheckers.isTypeQual(what)
-        || Pcheckers.isFuncSpec(what)
-        || Pcheckers.isEnumSpecStart(what)
-        || Pcheckers.isStructOrUnionSpecStart(what)
-        || Pcheckers.isStaticAssert(what)
-        || isTypedefName(what);
+    return IdentClass.is(what, IdentClass.DECL_SPEC_START) || isTypedefName(what);
   }
-  //@formatter:on
 
   public boolean isAttributeStartGnuc() {
     return Pcheckers.isAttributeStartGnuc(tok);
@@ -356,7 +447,7 @@ public class Parse {
     if (!isUserDefinedId(tok)) {
       return false;
     }
-    CSymbol s = getSym(tok.getIdent());
+    CSymbol s = checkHeaderReference(typedefNames.getsym(tok.getIdent()));
     return s != null && s.getBase() == CSymbolBase.SYM_TYPEDEF;
   }
 
@@ -368,7 +459,7 @@ public class Parse {
 
     CType base = new ParseBase(this).parseBase();
     CDecl decl = new ParseDecl(this).parseDecl();
-    CType type = TypeMerger.build(base, decl);
+    CType type = TypeMerger.build(types, base, decl);
 
     if (!decl.isAstract()) {
       perror("expect abstract declarator.");
@@ -377,7 +468,11 @@ public class Parse {
 
   }
 
-  public Tokenlist getTokenlist() {
+  public TypeInterner getTypes() {
+    return types;
+  }
+
+  public TokenCursor getTokenlist() {
     return tokenlist;
   }
 
@@ -389,8 +484,8 @@ public class Parse {
     this.tokenlist.setOffset(parseState.getTokenlistOffset());
     this.tok = parseState.getTok();
     this.currentFn = parseState.getCurrentFn();
-    this.ringBuffer = new ArrayList<Token>(parseState.getRingBuffer());
-    this.lastloc = parseState.getLastloc();
+    this.ringBuffer.rewind(parseState.getRingMark());
+    this.lastlocTok = parseState.getLastlocTok();
     this.prevtok = parseState.getPrevtok();
   }
 
@@ -404,6 +499,23 @@ public class Parse {
   }
 
   public TranslationUnit parse_unit() {
+    return parse_unit(null, true);
+  }
+
+  /// consumer: optional, invoked for each external declaration in order.
+  /// retain: if false, declarations are not collected into the unit,
+  /// and may be released by the consumer.
+  /// the consumer runs under the read lock of HashedLock.TABLES, and must not preprocess.
+  public TranslationUnit parse_unit(ExternalDeclarationConsumer consumer, boolean retain) {
+    HashedLock.TABLES.readLock().lock();
+    try {
+      return parseUnitLocked(consumer, retain);
+    } finally {
+      HashedLock.TABLES.readLock().unlock();
+    }
+  }
+
+  private TranslationUnit parseUnitLocked(ExternalDeclarationConsumer consumer, boolean retain) {
     TranslationUnit tu = new TranslationUnit();
     pushscope();
 
@@ -415,12 +527,240 @@ public class Parse {
       // before each function or global declaration
       moveStraySemicolon();
 
+      if (headerUnits != null && !isEof() && isHeaderToken(tok)) {
+        if (parseHeaderUnit(tu, consumer, retain)) {
+          continue;
+        }
+      }
+
       ExternalDeclaration ed = new ParseExternal(this).parse();
-      tu.push(ed);
+      emit(tu, ed, consumer, retain);
+    }
+
+    if (lazyContext != null) {
+      lazyContext.setUnitParsed();
     }
 
     popscope();
     return tu;
   }
 
+  ///////////////////////////////////////////////////////////////////
+  // HEADER UNITS
+
+  public void setHeaderUnits(HeaderUnitCache headerUnits, String mainFilename) {
+    NullChecker.check(headerUnits, mainFilename);
+
+    this.headerUnits = headerUnits;
+    this.mainFilename = mainFilename;
+  }
+
+  // not from the main file, and not built-in
+  private boolean isHeaderToken(Token t) {
+    final SourceLocation location = t.getLocation();
+    if (location == null || location.getLine() == 0 || location.getFilename() == null) {
+      return false;
+    }
+    return !location.getFilename().equals(mainFilename);
+  }
+
+  private boolean isStreamMark(Token t) {
+    return t.ofType(T.TOKEN_STREAMBEGIN) || t.ofType(T.TOKEN_STREAMEND);
+  }
+
+  // index of the current token in the token-list, or -1
+  private int currentIndex() {
+    final List<Token> list = tokenlist.getList();
+    if (list == null) {
+      return -1;
+    }
+    final int index = tokenlist.getOffset() - 1;
+    if (index >= 0 && index < list.size() && list.get(index) == tok) {
+      return index;
+    }
+    return -1;
+  }
+
+  // a header which refers to the declarations of the main file cannot be shared,
+  // the declarations of earlier headers are a part of its key.
+  private CSymbol checkHeaderReference(CSymbol sym) {
+    if (recording != null && sym != null && mainFilename.equals(sym.getLocationFile())) {
+      recording.setCacheable(false);
+    }
+    return sym;
+  }
+
+  private void emit(TranslationUnit tu, ExternalDeclaration ed, ExternalDeclarationConsumer consumer, boolean retain) {
+    if (consumer != null) {
+      consumer.consume(ed);
+    }
+    if (retain) {
+      tu.push(ed);
+    }
+  }
+
+  // import the whole run of header tokens from the cache,
+  // or parse it and put into the cache.
+  private boolean parseHeaderUnit(TranslationUnit tu, ExternalDeclarationConsumer consumer, boolean retain) {
+
+    final int begin = currentIndex();
+    if (begin < 0) {
+      return false;
+    }
+
+    final List<Token> list = tokenlist.getList();
+    int end = begin;
+    while (end < list.size()) {
+      final Token t = list.get(end);
+      if (t.ofType(TOKEN_EOF)) {
+        break;
+      }
+      if (!isStreamMark(t) && !isHeaderToken(t)) {
+        break;
+      }
+      end++;
+    }
+
+    // the same tokens mean the same declarations only after the same earlier headers:
+    // a run may use typedefs, tags and constants of the runs before it.
+    final long key = HeaderUnitCache.withContext(headerContext, HeaderUnitCache.hashTokens(list, begin, end));
+    final HeaderUnit cached = headerUnits.get(key, end - begin);
+    headerContext = key;
+
+    if (cached != null) {
+      for (Entry<Ident, CSymbol> e : cached.getTags().entrySet()) {
+        defineTag(e.getKey(), e.getValue());
+      }
+      for (Entry<Ident, CSymbol> e : cached.getSymbols().entrySet()) {
+        defineSym(e.getKey(), e.getValue());
+      }
+      for (ExternalDeclaration ed : cached.getDeclarations()) {
+        emit(tu, ed, consumer, retain);
+      }
+
+      tokenlist.setOffset(end);
+      move();
+      return true;
+    }
+
+    final HeaderUnit unit = new HeaderUnit(key, end - begin);
+    recording = unit;
+
+    int index = begin;
+    while (!isEof() && index >= 0 && index < end) {
+      ExternalDeclaration ed = new ParseExternal(this).parse();
+      emit(tu, ed, consumer, retain);
+      unit.addDeclaration(ed);
+
+      moveStraySemicolon();
+      index = currentIndex();
+    }
+
+    recording = null;
+
+    // the last declaration must end exactly with the header,
+    // and the including file must not complete its types.
+    if (index == end && isShareable(unit)) {
+      headerUnits.put(unit);
+    }
+    return true;
+  }
+
+  private boolean isShareable(HeaderUnit unit) {
+    for (CSymbol sym : unit.getTags().values()) {
+      if (sym.getType().isIncomplete()) {
+        return false;
+      }
+    }
+    for (CSymbol sym : unit.getSymbols().values()) {
+      if (sym.getType().isIncompleteArray()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  ///////////////////////////////////////////////////////////////////
+  // LAZY FUNCTION BODIES
+
+  public boolean isLazyBodies() {
+    return lazyBodies;
+  }
+
+  /// before the parse: the file scope is recorded only for lazy bodies.
+  public void setLazyBodies(boolean lazyBodies) {
+    this.lazyBodies = lazyBodies;
+    if (lazyBodies) {
+      symbols.enableFileScopeHistory();
+      tags.enableFileScopeHistory();
+    }
+  }
+
+  /// skip the body by brace matching, the current token is the opening brace.
+  /// returns null if the token range cannot be recorded, then the body is parsed now.
+  public LazyFunctionBody skipFunctionBody() {
+    final int begin = currentIndex();
+    if (begin < 0 || tp() != T.T_LEFT_BRACE) {
+      return null;
+    }
+
+    // the body sees the file scope as it is here, not the later declarations.
+    final int symbolsMark = symbols.markFileScope();
+    final int tagsMark = tags.markFileScope();
+
+    int depth = 0;
+    do {
+      if (isEof()) {
+        unexpectedEof();
+      }
+      if (tp() == T.T_LEFT_BRACE) {
+        depth++;
+      } else if (tp() == T.T_RIGHT_BRACE) {
+        depth--;
+      }
+      move();
+    } while (depth > 0);
+
+    final int end = currentIndex();
+    if (end < 0) {
+      perror("internal error: lost position of the token-list");
+    }
+
+    // the body would be parsed against the scope of this unit, it cannot be shared.
+    if (recording != null) {
+      recording.setCacheable(false);
+    }
+    if (lazyContext == null) {
+      lazyContext = new LazyBodyContext(this, tokenlist.getList(), symbols, tags);
+    }
+    return new LazyFunctionBody(lazyContext, begin, end, symbolsMark, tagsMark);
+  }
+
+  ///////////////////////////////////////////////////////////////////
+  // PRELUDE
+
+  /// parse the prelude, and keep its file scope.
+  /// tokenCount: how many tokens the prelude gives to the parser.
+  public PreludeSnapshot parse_prelude(int tokenCount) {
+    pushscope();
+    moveStraySemicolon();
+
+    while (!tok.ofType(TOKEN_EOF)) {
+      moveStraySemicolon();
+      new ParseExternal(this).parse();
+    }
+
+    PreludeSnapshot snapshot = new PreludeSnapshot(symbols.freezeFileScope(), tags.freezeFileScope(), tokenCount);
+    popscope();
+
+    // from here the symbols are shared by all translation-units
+    for (CSymbol sym : snapshot.getSymbols().values()) {
+      sym.setShared();
+    }
+    for (CSymbol sym : snapshot.getTags().values()) {
+      sym.setShared();
+    }
+    return snapshot;
+  }
+
 }
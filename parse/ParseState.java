@@ -1,25 +1,23 @@
 package ast.parse;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import jscan.tokenize.Token;
 import ast.unit.FunctionDefinition;
 
+/// Checkpoint for speculative parsing: offsets and references only, nothing is copied.
 public class ParseState {
   private final int tokenlistOffset;
   private final Token tok;
   private final FunctionDefinition currentFn;
-  private final List<Token> ringBuffer;
-  private final String lastloc;
+  private final int ringMark;
+  private final Token lastlocTok;
   private final Token prevtok;
 
   public ParseState(Parse parser) {
     this.tokenlistOffset = parser.getTokenlist().getOffset();
     this.tok = parser.tok();
     this.currentFn = parser.getCurrentFn();
-    this.ringBuffer = new ArrayList<Token>(parser.getRingBuffer());
-    this.lastloc = parser.getLastLoc();
+    this.ringMark = parser.getRingBuffer().mark();
+    this.lastlocTok = parser.getLastLocTok();
     this.prevtok = parser.getPrevtok();
   }
 
@@ -35,12 +33,12 @@ public class ParseState {
     return currentFn;
   }
 
-  public List<Token> getRingBuffer() {
-    return ringBuffer;
+  public int getRingMark() {
+    return ringMark;
   }
 
-  public String getLastloc() {
-    return lastloc;
+  public Token getLastlocTok() {
+    return lastlocTok;
   }
 
   public Token getPrevtok() {
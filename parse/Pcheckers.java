@@ -7,7 +7,6 @@ import static jscan.tokenize.T.T_PLUS;
 import static jscan.tokenize.T.T_TILDE;
 import static jscan.tokenize.T.T_TIMES;
 
-import ast.symtab.IdentMap;
 import jscan.tokenize.T;
 import jscan.tokenize.Token;
 
@@ -40,82 +39,58 @@ public abstract class Pcheckers {
   }
 
   public static boolean isStorageClassSpec(Token what) {
-    return what.isIdent(IdentMap.static_ident)
-        || what.isIdent(IdentMap.extern_ident)
-        || what.isIdent(IdentMap.auto_ident)
-        || what.isIdent(IdentMap.register_ident)
-        || what.isIdent(IdentMap.typedef_ident);
+    return IdentClass.is(what, IdentClass.STORAGE_CLASS);
   }
 
   public static boolean isTypeSpec(Token what) {
-    return what.isIdent(IdentMap.void_ident)
-        || what.isIdent(IdentMap.char_ident)
-        || what.isIdent(IdentMap.short_ident)
-        || what.isIdent(IdentMap.int_ident)
-        || what.isIdent(IdentMap.long_ident)
-        || what.isIdent(IdentMap.float_ident)
-        || what.isIdent(IdentMap.double_ident)
-        || what.isIdent(IdentMap.signed_ident)
-        || what.isIdent(IdentMap.unsigned_ident)
-        || what.isIdent(IdentMap._Bool_ident)
-        || what.isIdent(IdentMap._Complex_ident);
+    return IdentClass.is(what, IdentClass.TYPE_SPEC);
   }
 
   public static boolean isConstIdent(Token what) {
-    return what.isIdent(IdentMap.const_ident)
-        || what.isIdent(IdentMap.__const___ident)
-        || what.isIdent(IdentMap.__const_ident);
+    return IdentClass.is(what, IdentClass.CONST);
   }
 
   public static boolean isVolatileIdent(Token what) {
-    return what.isIdent(IdentMap.volatile_ident)
-        || what.isIdent(IdentMap.__volatile___ident)
-        || what.isIdent(IdentMap.__volatile_ident);
+    return IdentClass.is(what, IdentClass.VOLATILE);
   }
 
   private static boolean isRestrictIdent(Token what) {
-    return what.isIdent(IdentMap.restrict_ident)
-        || what.isIdent(IdentMap.__restrict___ident)
-        || what.isIdent(IdentMap.__restrict_ident);
+    return IdentClass.is(what, IdentClass.RESTRICT);
   }
 
   public static boolean isTypeQual(Token what) {
-    return isConstIdent(what) || isVolatileIdent(what) || isRestrictIdent(what);
+    return IdentClass.is(what, IdentClass.TYPE_QUAL);
   }
 
   public static boolean isInlineIdent(Token what) {
-    return what.isIdent(IdentMap.inline_ident)
-        || what.isIdent(IdentMap.__inline_ident)
-        || what.isIdent(IdentMap.__inline___ident);
+    return IdentClass.is(what, IdentClass.INLINE);
   }
 
   public static boolean isFuncSpec(Token what) {
-    return isInlineIdent(what) || isNoreturnIdent(what);
+    return IdentClass.is(what, IdentClass.FUNC_SPEC);
   }
 
   public static boolean isNoreturnIdent(Token what) {
-    return what.isIdent(IdentMap._Noreturn_ident);
+    return IdentClass.is(what, IdentClass.NORETURN);
   }
 
   public static boolean isEnumSpecStart(Token what) {
-    return what.isIdent(IdentMap.enum_ident);
+    return IdentClass.is(what, IdentClass.ENUM);
   }
 
   public static boolean isStructOrUnionSpecStart(Token what) {
-    return what.isIdent(IdentMap.struct_ident) || what.isIdent(IdentMap.union_ident);
+    return IdentClass.is(what, IdentClass.STRUCT_UNION);
   }
 
   public static boolean isAttributeStartGnuc(Token what) {
-    return what.isIdent(IdentMap.__attribute___ident) || what.isIdent(IdentMap.__attribute_ident);
+    return IdentClass.is(what, IdentClass.ATTRIBUTE_GNUC);
   }
 
   public static boolean isAsmStart(Token what) {
-    return what.isIdent(IdentMap.asm_ident)
-        || what.isIdent(IdentMap.__asm___ident)
-        || what.isIdent(IdentMap.__asm_ident);
+    return IdentClass.is(what, IdentClass.ASM);
   }
 
   public static boolean isStaticAssert(Token what) {
-    return what.isIdent(IdentMap._Static_assert_ident);
+    return IdentClass.is(what, IdentClass.STATIC_ASSERT);
   }
 }
@@ -0,0 +1,39 @@
+package ast.parse;
+
+import java.util.Map;
+
+import ast.symtab.elements.CSymbol;
+import jscan.symtab.Ident;
+
+/// File-scope symbols and tags declared by the predefined prelude.
+/// Parsed once, shared read-only by all translation-units that start with the same prelude.
+public class PreludeSnapshot {
+
+  private final Map<Ident, CSymbol> symbols;
+  private final Map<Ident, CSymbol> tags;
+
+  // how many tokens the prelude gives to the parser,
+  // the translation-unit skips them instead of parsing again.
+  private final int tokenCount;
+
+  public PreludeSnapshot(Map<Ident, CSymbol> symbols, Map<Ident, CSymbol> tags, int tokenCount) {
+    NullChecker.check(symbols, tags);
+
+    this.symbols = symbols;
+    this.tags = tags;
+    this.tokenCount = tokenCount;
+  }
+
+  public Map<Ident, CSymbol> getSymbols() {
+    return symbols;
+  }
+
+  public Map<Ident, CSymbol> getTags() {
+    return tags;
+  }
+
+  public int getTokenCount() {
+    return tokenCount;
+  }
+
+}
@@ -5,8 +5,62 @@ import java.util.List;
 
 import jscan.tokenize.Token;
 
+/// The last tokens seen by the parser, for error messages.
+/// Preallocated circular array: adding a token is O(1) and does not allocate,
+/// the lines are rendered only when an error is reported.
+/// A checkpoint is the absolute count of added tokens, rewinding to it does not copy anything.
 public class RingBuf {
 
+  public static final int CAPACITY = 230;
+
+  private final Token[] buffer;
+
+  // absolute indexes: [begin, end) are in the buffer
+  private int begin;
+  private int end;
+
+  public RingBuf() {
+    this.buffer = new Token[CAPACITY];
+  }
+
+  public void add(Token t) {
+    buffer[end % buffer.length] = t;
+    end++;
+    if (end - begin > buffer.length) {
+      begin = end - buffer.length;
+    }
+  }
+
+  public int size() {
+    return end - begin;
+  }
+
+  public int mark() {
+    return end;
+  }
+
+  /// drop the tokens added after the mark.
+  /// the tokens overwritten since the mark are lost, the buffer is shorter then.
+  public void rewind(int mark) {
+    end = mark;
+    if (begin > end) {
+      begin = end;
+    }
+  }
+
+  /// oldest first
+  public List<Token> toList() {
+    List<Token> result = new ArrayList<Token>(size());
+    for (int i = begin; i < end; i++) {
+      result.add(buffer[i % buffer.length]);
+    }
+    return result;
+  }
+
+  public String toStringLines() {
+    return ringBufferToStringLines(toList());
+  }
+
   public static String ringBufferToStringLines(List<Token> ringBuffer) {
 
     List<List<Token>> lines = new ArrayList<List<Token>>(0);
@@ -0,0 +1,103 @@
+package ast.parse;
+
+import java.io.IOException;
+import java.util.List;
+
+import jscan.tokenize.T;
+import jscan.tokenize.Token;
+import ast.errors.ParseException;
+
+/// Tokens pulled from the source on demand, only the last 'capacity' tokens are kept.
+/// The parser rewinds only in the expression parser: to the '(' of a parenthesized type-name,
+/// once it is known whether a cast or a compound literal follows. The distance is the length of a type-name, so the window
+/// bounds the tokens kept by the parser regardless of the file size.
+public class StreamingTokenlist implements TokenCursor {
+
+  public static final int DEFAULT_CAPACITY = 1 << 14;
+
+  private final TokenSource source;
+  private final Token[] window;
+
+  // absolute index of the token which is given next
+  private int offset;
+
+  // absolute count of tokens pulled from the source
+  private int fetched;
+
+  // once reached, it is repeated
+  private Token eof;
+
+  public StreamingTokenlist(TokenSource source) {
+    this(source, DEFAULT_CAPACITY);
+  }
+
+  public StreamingTokenlist(TokenSource source, int capacity) {
+    NullChecker.check(source);
+    if (capacity <= 0) {
+      throw new ParseException("streaming token-list: capacity must be positive");
+    }
+
+    this.source = source;
+    this.window = new Token[capacity];
+  }
+
+  @Override
+  public Token next() {
+    return get(offset++);
+  }
+
+  @Override
+  public Token peek() {
+    return get(offset);
+  }
+
+  @Override
+  public int getOffset() {
+    return offset;
+  }
+
+  @Override
+  public void setOffset(int offset) {
+    if (offset < 0 || offset > fetched || offset < fetched - window.length) {
+      throw new ParseException("streaming token-list: offset " + offset + " is out of the window");
+    }
+    this.offset = offset;
+  }
+
+  @Override
+  public List<Token> getList() {
+    return null;
+  }
+
+  private Token get(int index) {
+    if (index < fetched - window.length) {
+      throw new ParseException("streaming token-list: offset " + index + " is out of the window");
+    }
+    while (index >= fetched) {
+      fill();
+    }
+    return window[index % window.length];
+  }
+
+  private void fill() {
+    if (eof == null) {
+      Token t = pull();
+      if (t.ofType(T.TOKEN_EOF)) {
+        eof = t;
+      }
+      window[fetched % window.length] = t;
+    } else {
+      window[fetched % window.length] = eof;
+    }
+    fetched++;
+  }
+
+  private Token pull() {
+    try {
+      return source.next();
+    } catch (IOException e) {
+      throw new ParseException("streaming token-list: " + e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,21 @@
+package ast.parse;
+
+import java.util.List;
+
+import jscan.tokenize.Token;
+
+/// What the parser needs from its tokens: move forward, peek, and rewind to a saved offset.
+public interface TokenCursor {
+
+  public Token next();
+
+  public Token peek();
+
+  public int getOffset();
+
+  public void setOffset(int offset);
+
+  /// the whole token-list, or null if the tokens are not kept.
+  public List<Token> getList();
+
+}
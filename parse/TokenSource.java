@@ -0,0 +1,13 @@
+package ast.parse;
+
+import java.io.IOException;
+
+import jscan.tokenize.Token;
+
+/// Gives preprocessed tokens one by one, the last one is EOF.
+/// Must not be asked for the next token after EOF.
+public interface TokenSource {
+
+  public Token next() throws IOException;
+
+}
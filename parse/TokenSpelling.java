@@ -0,0 +1,42 @@
+package ast.parse;
+
+import jscan.sourceloc.SourceLocation;
+import jscan.tokenize.T;
+import jscan.tokenize.Token;
+
+/// A token of the source replaced by a copy, see TokenSpellings.
+/// The copy is complete: all fields of the original token, without its location.
+public final class TokenSpelling {
+
+  private final Token spelling;
+  private final SourceLocation location;
+
+  TokenSpelling(Token spelling, SourceLocation location) {
+    this.spelling = spelling;
+    this.location = location;
+  }
+
+  Token getSpelling() {
+    return spelling;
+  }
+
+  public T getType() {
+    return spelling.getType();
+  }
+
+  public String getValue() {
+    return spelling.getValue();
+  }
+
+  /// a new token: the spelling, at the location of the original one.
+  public Token toToken() {
+    return toToken(location);
+  }
+
+  public Token toToken(SourceLocation at) {
+    Token token = new Token(spelling);
+    token.setLocation(at);
+    return token;
+  }
+
+}
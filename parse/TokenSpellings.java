@@ -0,0 +1,57 @@
+package ast.parse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import jscan.tokenize.T;
+import jscan.tokenize.Token;
+
+/// Spellings of the tokens of one translation-unit, made when its nodes release the tokens of the source.
+/// Identifiers and punctuators of the same type and value share one copy: nothing else is in them.
+/// A literal has a copy of its own, with the constant of its token.
+/// The table lives as long as the trimmer, nothing is kept for the process.
+public final class TokenSpellings {
+
+  private final Map<String, TokenSpelling> shared;
+
+  public TokenSpellings() {
+    this.shared = new HashMap<String, TokenSpelling>();
+  }
+
+  /// the location is kept by the node.
+  public TokenSpelling of(Token from) {
+    if (from == null) {
+      return null;
+    }
+    if (isLiteral(from)) {
+      return new TokenSpelling(copy(from), null);
+    }
+
+    final String key = from.getType().ordinal() + " " + from.getValue();
+    TokenSpelling spelling = shared.get(key);
+    if (spelling == null) {
+      spelling = new TokenSpelling(copy(from), null);
+      shared.put(key, spelling);
+    }
+    return spelling;
+  }
+
+  /// with the location of the token.
+  public TokenSpelling located(Token from) {
+    if (from == null) {
+      return null;
+    }
+    return new TokenSpelling(of(from).getSpelling(), from.getLocation());
+  }
+
+  private static boolean isLiteral(Token t) {
+    return t.ofType(T.TOKEN_NUMBER) || t.ofType(T.TOKEN_CHAR) || t.ofType(T.TOKEN_STRING);
+  }
+
+  private static Token copy(Token from) {
+    Token copy = new Token(from);
+    copy.setLocation(null);
+    return copy;
+  }
+
+}
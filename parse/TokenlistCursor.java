@@ -0,0 +1,43 @@
+package ast.parse;
+
+import java.util.List;
+
+import jscan.Tokenlist;
+import jscan.tokenize.Token;
+
+/// The fully materialized token-list, any offset may be restored.
+public class TokenlistCursor implements TokenCursor {
+
+  private final Tokenlist tokenlist;
+
+  public TokenlistCursor(Tokenlist tokenlist) {
+    NullChecker.check(tokenlist);
+    this.tokenlist = tokenlist;
+  }
+
+  @Override
+  public Token next() {
+    return tokenlist.next();
+  }
+
+  @Override
+  public Token peek() {
+    return tokenlist.peek();
+  }
+
+  @Override
+  public int getOffset() {
+    return tokenlist.getOffset();
+  }
+
+  @Override
+  public void setOffset(int offset) {
+    tokenlist.setOffset(offset);
+  }
+
+  @Override
+  public List<Token> getList() {
+    return tokenlist.getList();
+  }
+
+}
@@ -0,0 +1,54 @@
+package ast.parse;
+
+import jscan.symtab.Ident;
+import ast.symtab.FlatSymtab;
+import ast.symtab.elements.CSymbol;
+
+/// What an identifier resolves to, for the decl-vs-expression checks of the parser.
+/// Direct-mapped by the ident: a hit is one compare, instead of the probe of the table
+/// and the lookup in the symbols of the prelude for names not declared in the unit.
+/// A slot is dropped when a binding of its ident is added or popped.
+final class TypedefNameCache implements FlatSymtab.Rebinding<Ident> {
+
+  private static final int SIZE = 512;
+
+  private final FlatSymtab<Ident, CSymbol> symbols;
+  private final Ident[] idents;
+  private final CSymbol[] syms;
+
+  TypedefNameCache(FlatSymtab<Ident, CSymbol> symbols) {
+    this.symbols = symbols;
+    this.idents = new Ident[SIZE];
+    this.syms = new CSymbol[SIZE];
+    symbols.setRebinding(this);
+  }
+
+  private static int slot(Ident ident) {
+    int h = ident.hashCode();
+    return (h ^ (h >>> 16)) & (SIZE - 1);
+  }
+
+  /// the same as the getsym of the symbol-table, the misses are cached too.
+  CSymbol getsym(Ident ident) {
+    final int i = slot(ident);
+    final Ident k = idents[i];
+    if (k != null && (k == ident || k.equals(ident))) {
+      return syms[i];
+    }
+    final CSymbol sym = symbols.getsym(ident);
+    idents[i] = ident;
+    syms[i] = sym;
+    return sym;
+  }
+
+  @Override
+  public void rebound(Ident key) {
+    final int i = slot(key);
+    final Ident k = idents[i];
+    if (k != null && (k == key || k.equals(key))) {
+      idents[i] = null;
+      syms[i] = null;
+    }
+  }
+
+}
@@ -1,5 +1,6 @@
 package ast.stmt.main;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import jscan.sourceloc.SourceLocation;
@@ -8,6 +9,9 @@ import jscan.tokenize.Token;
 import ast.decls.Declaration;
 import ast.expr.CExpression;
 import ast.parse.ILocation;
+import ast.parse.PackedLocation;
+import ast.parse.TokenSpelling;
+import ast.parse.TokenSpellings;
 import ast.stmt.Scase;
 import ast.stmt.Sdefault;
 import ast.stmt.Sswitch;
@@ -19,7 +23,8 @@ public class CStatement implements ILocation {
   //TODO: range loc
 
   private final CStatementBase base;
-  private final SourceLocation location;
+  private final long location; // line and column, see PackedLocation
+  private volatile Object file; // the file name, its SourceLocation once materialized
 
   private List<BlockItem> compound;
 
@@ -28,6 +33,7 @@ public class CStatement implements ILocation {
   private Scase scase;
   private Sdefault sdefault;
   private List<Token> asmlist;
+  private List<TokenSpelling> asmSpellings; // asmlist after trim
 
   // for
   private Declaration decl;
@@ -51,7 +57,8 @@ public class CStatement implements ILocation {
   private CStatement labelstmt;
 
   public CStatement(Token from, Declaration decl, CExpression init, CExpression test, CExpression step, CStatement loop) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = CStatementBase.SFOR;
 
     this.decl = decl;
@@ -65,7 +72,8 @@ public class CStatement implements ILocation {
   // while (test) loop
 
   public CStatement(Token from, CStatementBase base, CExpression test, CStatement loop) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = base;
 
     this.test = test;
@@ -76,7 +84,8 @@ public class CStatement implements ILocation {
   // return ;
   // expr-stmt
   public CStatement(Token from, CStatementBase base, CExpression expr) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = base;
 
     this.expr = expr;
@@ -85,7 +94,8 @@ public class CStatement implements ILocation {
   // label: stmt
   // goto label;
   public CStatement(Token from, CStatementBase base, FunctionDefinition function, Ident label, CStatement labelstmt) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = base;
 
     this.function = function;
@@ -94,7 +104,8 @@ public class CStatement implements ILocation {
   }
 
   public CStatement(Token from, CExpression ifexpr, CStatement ifstmt, CStatement ifelse) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = CStatementBase.SIF;
 
     this.ifexpr = ifexpr;
@@ -103,38 +114,44 @@ public class CStatement implements ILocation {
   }
 
   public CStatement(Token lbrace, Token rbrace, List<BlockItem> blockItemList) {
-    this.location = new SourceLocation(lbrace); // TODO: range loc
+    this.location = PackedLocation.pack(lbrace); // TODO: range loc
+    this.file = PackedLocation.filename(lbrace);
     this.base = CStatementBase.SCOMPOUND;
 
     this.compound = blockItemList;
   }
 
   public CStatement(Token from, List<Token> asmlist) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = CStatementBase.SASM;
     this.asmlist = asmlist;
   }
 
   public CStatement(Token from, Sdefault default_stmt) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = CStatementBase.SDEFAULT;
     this.sdefault = default_stmt;
   }
 
   // break, continue
   public CStatement(Token from, CStatementBase base) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = base;
   }
 
   public CStatement(Token from, Sswitch switch_stmt) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = CStatementBase.SSWITCH;
     this.sswitch = switch_stmt;
   }
 
   public CStatement(Token from, Scase case_stmt) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.base = CStatementBase.SCASE;
     this.scase = case_stmt;
   }
@@ -169,27 +186,37 @@ public class CStatement implements ILocation {
 
   @Override
   public SourceLocation getLocation() {
-    return location;
+    final SourceLocation at = PackedLocation.located(file, location);
+    if (at != null) {
+      file = at;
+    }
+    return at;
   }
 
   @Override
   public String getLocationToString() {
-    return location.toString();
+    final SourceLocation at = getLocation();
+    return at == null ? "" : at.toString();
   }
 
   @Override
   public int getLocationLine() {
-    return location.getLine();
+    return PackedLocation.getLine(location);
   }
 
   @Override
   public int getLocationColumn() {
-    return location.getColumn();
+    return PackedLocation.getColumn(location);
   }
 
   @Override
   public String getLocationFile() {
-    return location.getFilename();
+    return PackedLocation.filenameOf(file);
+  }
+
+  /// line and column, see PackedLocation. the file is getLocationFile().
+  public long getLocationPacked() {
+    return location;
   }
 
   public List<BlockItem> getCompound() {
@@ -200,12 +227,35 @@ public class CStatement implements ILocation {
     this.compound = compound;
   }
 
+  /// after trim: new tokens, copies of the original ones.
   public List<Token> getAsmlist() {
-    return asmlist;
+    if (asmSpellings == null) {
+      return asmlist;
+    }
+    List<Token> tokens = new ArrayList<Token>(asmSpellings.size());
+    for (TokenSpelling spelling : asmSpellings) {
+      tokens.add(spelling.toToken());
+    }
+    return tokens;
   }
 
   public void setAsmlist(List<Token> asmlist) {
     this.asmlist = asmlist;
+    this.asmSpellings = null;
+  }
+
+  /// the tokens of the source are replaced with their spellings,
+  /// so that the token-list of the translation-unit may be released.
+  public void trimAsmlist(TokenSpellings table) {
+    if (asmlist == null) {
+      return;
+    }
+    List<TokenSpelling> spellings = new ArrayList<TokenSpelling>(asmlist.size());
+    for (Token t : asmlist) {
+      spellings.add(table.located(t));
+    }
+    this.asmSpellings = spellings;
+    this.asmlist = null;
   }
 
   public Declaration getDecl() {
@@ -0,0 +1,177 @@
+package ast.symtab;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import ast.errors.ParseException;
+
+/// Bindings of the file scope in the order they were made.
+/// A mark is a position in this order: the view at a mark sees only the bindings made before it.
+public class FileScopeHistory<K, V> {
+
+  private final Map<K, V> base;
+  private final List<V> values;
+  private final List<K> keys;
+
+  // positions of the bindings of each name, ascending
+  private final Map<K, List<Integer>> positions;
+
+  public FileScopeHistory(Map<K, V> base) {
+    this.base = base;
+    this.values = new ArrayList<V>();
+    this.keys = new ArrayList<K>();
+    this.positions = new HashMap<K, List<Integer>>();
+  }
+
+  public void add(K key, V value) {
+    List<Integer> at = positions.get(key);
+    if (at == null) {
+      at = new ArrayList<Integer>(1);
+      positions.put(key, at);
+    }
+    at.add(values.size());
+    keys.add(key);
+    values.add(value);
+  }
+
+  public int mark() {
+    return values.size();
+  }
+
+  /// read-only file scope as it was at the mark.
+  public Map<K, V> at(int mark) {
+    if (mark < 0 || mark > values.size()) {
+      throw new ParseException("file scope: mark out of range: " + mark);
+    }
+    return new View(mark);
+  }
+
+  // position of the last binding of the key before the mark, or -1
+  private int lastBefore(Object key, int mark) {
+    final List<Integer> at = positions.get(key);
+    if (at == null) {
+      return -1;
+    }
+    int lo = 0;
+    int hi = at.size() - 1;
+    int found = -1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (at.get(mid) < mark) {
+        found = at.get(mid);
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found;
+  }
+
+  private V get(Object key, int mark) {
+    final int found = lastBefore(key, mark);
+    if (found >= 0) {
+      return values.get(found);
+    }
+    return base == null ? null : base.get(key);
+  }
+
+  private class View extends AbstractMap<K, V> {
+    private final int mark;
+
+    View(int mark) {
+      this.mark = mark;
+    }
+
+    @Override
+    public V get(Object key) {
+      return FileScopeHistory.this.get(key, mark);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return get(key) != null;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+      return new AbstractSet<Map.Entry<K, V>>() {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+          return new Entries(mark);
+        }
+
+        @Override
+        public int size() {
+          int count = 0;
+          for (Iterator<Map.Entry<K, V>> it = iterator(); it.hasNext(); it.next()) {
+            count++;
+          }
+          return count;
+        }
+      };
+    }
+  }
+
+  // the symbols of the base which are not bound before the mark,
+  // then the last binding of each name before the mark: nothing is copied.
+  private class Entries implements Iterator<Map.Entry<K, V>> {
+    private final int mark;
+    private final Iterator<Map.Entry<K, V>> fromBase;
+    private int position;
+    private Map.Entry<K, V> next;
+
+    Entries(int mark) {
+      this.mark = mark;
+      this.fromBase = base == null ? null : base.entrySet().iterator();
+      this.position = 0;
+      advance();
+    }
+
+    private void advance() {
+      next = null;
+      while (fromBase != null && fromBase.hasNext()) {
+        final Map.Entry<K, V> e = fromBase.next();
+        if (lastBefore(e.getKey(), mark) < 0) {
+          next = e;
+          return;
+        }
+      }
+      while (position < mark) {
+        final int i = position++;
+        final K key = keys.get(i);
+        if (lastBefore(key, mark) == i) {
+          next = new AbstractMap.SimpleImmutableEntry<K, V>(key, values.get(i));
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      final Map.Entry<K, V> e = next;
+      advance();
+      return e;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
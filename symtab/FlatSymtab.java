@@ -0,0 +1,311 @@
+package ast.symtab;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.errors.ParseException;
+
+/// One open-addressed table for all scopes.
+/// Each name has a chain of bindings, the innermost first: lookup is one probe.
+/// Each scope has an undo log of its bindings: pop costs only the symbols declared in the scope.
+/// Entering and leaving a scope allocates nothing, the bindings of popped scopes are reused.
+public class FlatSymtab<K, V> implements SymtabApi<K, V> {
+
+  /// told when the symbol a name resolves to may have changed.
+  public interface Rebinding<K> {
+    void rebound(K key);
+  }
+
+  // popped bindings are reused, linked by shadowed.
+  private static class Binding<K, V> {
+    private K key;
+    private V value;
+    private int depth;
+    private Binding<K, V> shadowed;
+
+    Binding(K key, V value, int depth, Binding<K, V> shadowed) {
+      this.key = key;
+      this.value = value;
+      this.depth = depth;
+      this.shadowed = shadowed;
+    }
+  }
+
+  // a name keeps its slot when it is unbound, so the slots are never removed.
+  private Object[] keys;
+  private Binding<K, V>[] heads;
+  private int used;
+
+  // bindings in the order they were made, and where each scope starts in it
+  private final List<Binding<K, V>> undo;
+  private int[] scopeStart;
+  private int depth;
+
+  // popped bindings, free for the next scopes
+  private Binding<K, V> free;
+
+  // symbols the file scope starts with, shared between symbol-tables.
+  private final Map<K, V> fileScopeBase;
+
+  // every binding of the file scope, also the replaced ones.
+  // null unless enabled: only the views at a mark need it.
+  private FileScopeHistory<K, V> history;
+
+  private Rebinding<K> rebinding;
+
+  public FlatSymtab() {
+    this(null);
+  }
+
+  public FlatSymtab(Map<K, V> fileScopeBase) {
+    this.fileScopeBase = fileScopeBase;
+    this.undo = new ArrayList<Binding<K, V>>();
+    this.scopeStart = new int[16];
+    allocate(64);
+  }
+
+  /// keep the history of the file scope, for markFileScope and freezeFileScope(mark).
+  /// it must be enabled before the first binding is made.
+  public void enableFileScopeHistory() {
+    if (history != null) {
+      return;
+    }
+    if (!undo.isEmpty()) {
+      throw new ParseException("file scope history: the symbol table is not empty");
+    }
+    this.history = new FileScopeHistory<K, V>(fileScopeBase);
+  }
+
+  public void setRebinding(Rebinding<K> rebinding) {
+    this.rebinding = rebinding;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void allocate(int capacity) {
+    this.keys = new Object[capacity];
+    this.heads = new Binding[capacity];
+    this.used = 0;
+  }
+
+  @Override
+  public void pushscope() {
+    if (depth == scopeStart.length) {
+      int[] grown = new int[depth * 2];
+      System.arraycopy(scopeStart, 0, grown, 0, depth);
+      scopeStart = grown;
+    }
+    scopeStart[depth++] = undo.size();
+  }
+
+  @Override
+  public void popscope() {
+    if (depth == 0) {
+      throw new ParseException("empty symbol table. no scopes are available");
+    }
+    final int start = scopeStart[--depth];
+    for (int i = undo.size() - 1; i >= start; i--) {
+      Binding<K, V> b = undo.remove(i);
+      heads[find(b.key)] = b.shadowed;
+      if (rebinding != null) {
+        rebinding.rebound(b.key);
+      }
+      release(b);
+    }
+  }
+
+  @Override
+  public boolean isFileScope() {
+    return depth == 1;
+  }
+
+  @Override
+  public boolean isBlockScope() {
+    return depth > 1;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return depth == 0;
+  }
+
+  @Override
+  public V getsym(K name) {
+    final int slot = find(name);
+    if (slot >= 0 && heads[slot] != null) {
+      return heads[slot].value;
+    }
+    return fromBase(name);
+  }
+
+  // this need __ONLY__ when we define new symbol, and check redefinition
+  @Override
+  public V getsymFromCurrentScope(K name) {
+    final int slot = find(name);
+    if (slot >= 0 && heads[slot] != null && heads[slot].depth == depth) {
+      return heads[slot].value;
+    }
+    if (depth == 1) {
+      return fromBase(name);
+    }
+    return null;
+  }
+
+  @Override
+  public void addsym(K key, V sym) {
+    if (depth == 0) {
+      throw new ParseException("empty symbol table. no scopes are available");
+    }
+    if (key == null) {
+      throw new ParseException("null key for symbol entry...");
+    }
+
+    if (depth == 1 && history != null) {
+      history.add(key, sym);
+    }
+    if (rebinding != null) {
+      rebinding.rebound(key);
+    }
+
+    int slot = find(key);
+    if (slot < 0) {
+      slot = insert(key);
+    }
+
+    // the same scope: replace, as the map of the scope does
+    Binding<K, V> head = heads[slot];
+    if (head != null && head.depth == depth) {
+      head.value = sym;
+      return;
+    }
+
+    Binding<K, V> b = obtain(key, sym, head);
+    heads[slot] = b;
+    undo.add(b);
+  }
+
+  @Override
+  public Map<K, V> freezeFileScope() {
+    if (!isFileScope()) {
+      throw new ParseException("freeze symbol table: expect file scope");
+    }
+    HashMap<K, V> all = new HashMap<K, V>();
+    if (fileScopeBase != null) {
+      all.putAll(fileScopeBase);
+    }
+    for (int i = 0; i < undo.size(); i++) {
+      Binding<K, V> b = undo.get(i);
+      all.put(b.key, b.value);
+    }
+    return Collections.unmodifiableMap(all);
+  }
+
+  /// position in the file scope, see freezeFileScope(mark).
+  public int markFileScope() {
+    if (!isFileScope()) {
+      throw new ParseException("mark symbol table: expect file scope");
+    }
+    if (history == null) {
+      throw new ParseException("mark symbol table: the file scope history is not enabled");
+    }
+    return history.mark();
+  }
+
+  /// read-only file scope as it was at the mark.
+  /// The view does not copy the symbols, and stays valid after the file scope is popped.
+  public Map<K, V> freezeFileScope(int mark) {
+    if (history == null) {
+      throw new ParseException("freeze symbol table: the file scope history is not enabled");
+    }
+    return history.at(mark);
+  }
+
+  @Override
+  public void dump() {
+    for (int i = undo.size() - 1; i >= 0; i--) {
+      Binding<K, V> b = undo.get(i);
+      System.out.println(b.key.toString() + " " + b.value.toString());
+      System.out.println();
+    }
+  }
+
+  private Binding<K, V> obtain(K key, V sym, Binding<K, V> head) {
+    final Binding<K, V> b = free;
+    if (b == null) {
+      return new Binding<K, V>(key, sym, depth, head);
+    }
+    free = b.shadowed;
+    b.key = key;
+    b.value = sym;
+    b.depth = depth;
+    b.shadowed = head;
+    return b;
+  }
+
+  private void release(Binding<K, V> b) {
+    b.key = null;
+    b.value = null;
+    b.shadowed = free;
+    free = b;
+  }
+
+  private V fromBase(K name) {
+    if (depth > 0 && fileScopeBase != null) {
+      return fileScopeBase.get(name);
+    }
+    return null;
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  // slot of the key, or -1
+  private int find(Object key) {
+    if (key == null) {
+      return -1;
+    }
+    final int mask = keys.length - 1;
+    for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+      final Object k = keys[i];
+      if (k == null) {
+        return -1;
+      }
+      if (k == key || k.equals(key)) {
+        return i;
+      }
+    }
+  }
+
+  private int insert(K key) {
+    if ((used + 1) * 2 > keys.length) {
+      grow();
+    }
+    final int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    while (keys[i] != null) {
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    used++;
+    return i;
+  }
+
+  private void grow() {
+    final Object[] oldKeys = keys;
+    final Binding<K, V>[] oldHeads = heads;
+    allocate(oldKeys.length * 2);
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        @SuppressWarnings("unchecked")
+        K key = (K) oldKeys[i];
+        heads[insert(key)] = oldHeads[i];
+      }
+    }
+  }
+
+}
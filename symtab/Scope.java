@@ -1,6 +1,7 @@
 package ast.symtab;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 
 /// Represent one scope
@@ -8,8 +9,18 @@ import java.util.Map.Entry;
 public class Scope<K, V> {
   private final HashMap<K, V> scope;
 
+  // read-only symbols under this scope (prelude snapshot), never modified.
+  // new symbols are added to the own table, and shadow the frozen ones.
+  private final Map<K, V> frozen;
+
   public Scope() {
     this.scope = new HashMap<K, V>();
+    this.frozen = null;
+  }
+
+  public Scope(Map<K, V> frozen) {
+    this.scope = new HashMap<K, V>();
+    this.frozen = frozen;
   }
 
   public void put(K key, V value) {
@@ -17,7 +28,21 @@ public class Scope<K, V> {
   }
 
   public V get(K key) {
-    return scope.get(key);
+    V sym = scope.get(key);
+    if (sym == null && frozen != null) {
+      return frozen.get(key);
+    }
+    return sym;
+  }
+
+  /// own and frozen symbols, the own ones win.
+  public Map<K, V> getAll() {
+    HashMap<K, V> all = new HashMap<K, V>();
+    if (frozen != null) {
+      all.putAll(frozen);
+    }
+    all.putAll(scope);
+    return all;
   }
 
   public HashMap<K, V> getScope() {
@@ -1,11 +1,13 @@
 package ast.symtab;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import ast.errors.ParseException;
 
-public class Symtab<K, V> {
+public class Symtab<K, V> implements SymtabApi<K, V> {
 
   // this is simple stack
   // when create new scope, push it on top
@@ -13,11 +15,23 @@ public class Symtab<K, V> {
 
   private List<Scope<K, V>> scopes;
 
+  // symbols the file scope starts with, shared between symbol-tables.
+  private final Map<K, V> fileScopeBase;
+
   public Symtab() {
+    this(null);
+  }
+
+  public Symtab(Map<K, V> fileScopeBase) {
     this.scopes = new ArrayList<Scope<K, V>>();
+    this.fileScopeBase = fileScopeBase;
   }
 
   public void pushscope() {
+    if (scopes.isEmpty() && fileScopeBase != null) {
+      this.scopes.add(0, new Scope<K, V>(fileScopeBase));
+      return;
+    }
     this.scopes.add(0, new Scope<K, V>());
   }
 
@@ -73,6 +87,14 @@ public class Symtab<K, V> {
     return scopes.isEmpty();
   }
 
+  /// read-only copy of the symbols visible in the file scope.
+  public Map<K, V> freezeFileScope() {
+    if (!isFileScope()) {
+      throw new ParseException("freeze symbol table: expect file scope");
+    }
+    return Collections.unmodifiableMap(scopes.get(0).getAll());
+  }
+
   public void dump() {
     for (int i = 0; i < scopes.size(); i++) {
       Scope<K, V> scope = scopes.get(i);
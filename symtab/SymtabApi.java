@@ -0,0 +1,24 @@
+package ast.symtab;
+
+import java.util.Map;
+
+/// Scoped symbol-table: the innermost binding of a name is visible.
+public interface SymtabApi<K, V> {
+  //@formatter:off
+  public void pushscope();
+  public void popscope();
+
+  public boolean isFileScope();
+  public boolean isBlockScope();
+  public boolean isEmpty();
+
+  public V getsym(K name);
+  public V getsymFromCurrentScope(K name);
+  public void addsym(K key, V sym);
+
+  /// read-only copy of the symbols visible in the file scope.
+  public Map<K, V> freezeFileScope();
+
+  public void dump();
+  //@formatter:on
+}
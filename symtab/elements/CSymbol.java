@@ -7,13 +7,21 @@ import jscan.sourceloc.SourceLocation;
 import jscan.symtab.Ident;
 import jscan.tokenize.Token;
 import ast.decls.Initializer;
+import ast.errors.ParseException;
 import ast.parse.ILocation;
+import ast.parse.PackedLocation;
+import ast.parse.TokenSpelling;
+import ast.parse.TokenSpellings;
 import ast.types.CType;
 import ast.types.CTypeApi;
 
 public class CSymbol implements CTypeApi, ILocation {
-  private final SourceLocation location;
-  private final Token from;
+  private final long location; // line and column, see PackedLocation
+  private volatile Object file; // the file name, its SourceLocation once materialized
+  private Object from; // the token of the source, its spelling after trim
+
+  // a symbol of the prelude or of a shared header unit, the same object is a part of other translation-units
+  private volatile boolean isShared;
 
   private final CSymbolBase base;
   private final Ident name;
@@ -25,7 +33,8 @@ public class CSymbol implements CTypeApi, ILocation {
   private int offset;
 
   public CSymbol(CSymbolBase base, Ident name, CType type, Token from) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.from = from;
     this.base = base;
     this.name = name;
@@ -33,7 +42,8 @@ public class CSymbol implements CTypeApi, ILocation {
   }
 
   public CSymbol(CSymbolBase base, Ident name, CType type, List<Initializer> initializer, Token from) {
-    this.location = new SourceLocation(from);
+    this.location = PackedLocation.pack(from);
+    this.file = PackedLocation.filename(from);
     this.from = from;
     this.base = base;
     this.name = name;
@@ -60,7 +70,7 @@ public class CSymbol implements CTypeApi, ILocation {
   @Override
   public String toString() {
     return "line="
-        + String.format("%-3d", location.getLine())
+        + String.format("%-3d", getLocationLine())
         + " (name="
         + name.getName()
         + ", type="
@@ -148,35 +158,68 @@ public class CSymbol implements CTypeApi, ILocation {
 
   @Override
   public SourceLocation getLocation() {
-    return location;
+    final SourceLocation at = PackedLocation.located(file, location);
+    if (at != null) {
+      file = at;
+    }
+    return at;
   }
 
   @Override
   public String getLocationToString() {
-    return location.toString();
+    final SourceLocation at = getLocation();
+    return at == null ? "" : at.toString();
   }
 
   @Override
   public int getLocationLine() {
-    return location.getLine();
+    return PackedLocation.getLine(location);
   }
 
   @Override
   public int getLocationColumn() {
-    return location.getColumn();
+    return PackedLocation.getColumn(location);
   }
 
   @Override
   public String getLocationFile() {
-    return location.getFilename();
+    return PackedLocation.filenameOf(file);
+  }
+
+  /// line and column, see PackedLocation. the file is getLocationFile().
+  public long getLocationPacked() {
+    return location;
   }
 
   public CSymbolBase getBase() {
     return base;
   }
 
+  /// after trim: a new token, a copy of the original one.
   public Token getFrom() {
-    return from;
+    if (from instanceof TokenSpelling) {
+      return ((TokenSpelling) from).toToken(getLocation());
+    }
+    return (Token) from;
+  }
+
+  /// the token of the source is replaced with its spelling,
+  /// so that the token-list of the translation-unit may be released.
+  public void trimFrom(TokenSpellings spellings) {
+    if (isShared) {
+      throw new ParseException("internal error: a shared symbol is not trimmed: " + name.getName());
+    }
+    if (from instanceof Token) {
+      from = spellings.of((Token) from);
+    }
+  }
+
+  public boolean isShared() {
+    return isShared;
+  }
+
+  public void setShared() {
+    this.isShared = true;
   }
 
 }
@@ -29,8 +29,7 @@ public class CFuncParam {
 
   private CType genpointer(CType from) {
     if (from.isArray()) {
-      CPointerType ptr = new CPointerType(from.getTpArray().getArrayOf(), false);
-      return new CType(ptr);
+      return from.decay();
     }
     return from;
   }
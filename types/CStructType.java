@@ -1,6 +1,8 @@
 package ast.types;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import jscan.symtab.Ident;
 import ast.errors.ParseException;
@@ -11,6 +13,11 @@ public class CStructType {
   private List<CStructField> fields; // list, because we need original declaration's order without sorting
   private boolean isIncomplete;
 
+  // name -> first field with the name, built on the first lookup in a large struct.
+  // members of anonymous struct/union are already flattened into the fields.
+  private volatile Map<String, CStructField> fieldIndex;
+  private static final int INDEX_THRESHOLD = 8;
+
   public CStructType(boolean isUnion, Ident tag) {
     this.isUnion = isUnion;
     this.tag = tag;
@@ -79,29 +86,50 @@ public class CStructType {
   }
 
   public boolean isHasField(String s) {
+    return findField(s) != null;
+  }
+
+  public CStructField findField(Ident fieldName) {
+    return findField(fieldName.getName());
+  }
+
+  private CStructField findField(String name) {
     checkHasFields();
+
+    if (fields.size() > INDEX_THRESHOLD) {
+      return getFieldIndex().get(name);
+    }
+
     for (CStructField f : fields) {
       if (!f.isHasName()) {
-        continue;
+        continue; // unnamed bf. TODO:
       }
-      if (f.getName().getName().equals(s)) {
-        return true;
+      if (f.getName().getName().equals(name)) {
+        return f;
       }
     }
-    return false;
+    return null;
   }
 
-  public CStructField findField(Ident fieldName) {
-    checkHasFields();
+  private Map<String, CStructField> getFieldIndex() {
+    Map<String, CStructField> index = fieldIndex;
+    if (index != null) {
+      return index;
+    }
+
+    index = new HashMap<String, CStructField>(fields.size() * 2);
     for (CStructField f : fields) {
       if (!f.isHasName()) {
-        continue; // unnamed bf. TODO:
+        continue;
       }
-      if (f.getName().equals(fieldName)) {
-        return f;
+      final String name = f.getName().getName();
+      if (!index.containsKey(name)) {
+        index.put(name, f);
       }
     }
-    return null;
+
+    fieldIndex = index;
+    return index;
   }
 
   public void setUnion(boolean isUnion) {
@@ -115,6 +143,7 @@ public class CStructType {
   public void setFields(List<CStructField> fields) {
     this.isIncomplete = false;
     this.fields = fields;
+    this.fieldIndex = null;
   }
 
 }
\ No newline at end of file
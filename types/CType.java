@@ -26,6 +26,10 @@ public class CType implements CTypeApi {
   private CEnumType tpEnum;
   private CBitfieldType tpBitfield;
 
+  // derived types, built once on demand, shared by everything that points to this type
+  private volatile CType pointerToThis;
+  private volatile CType constPointerToThis;
+
   public void applyTqual(int f) {
     qualifiers |= f;
   }
@@ -326,6 +330,11 @@ public class CType implements CTypeApi {
   @Override
   public boolean isEqualTo(CType another) {
 
+    // canonical types
+    if (this == another) {
+      return true;
+    }
+
     if (kind != another.getKind()) {
       return false;
     }
@@ -414,6 +423,43 @@ public class CType implements CTypeApi {
     return tpPointer;
   }
 
+  /// the pointer to this type: the same instance each time, also from different threads.
+  /// at most two pointers are kept per type, the const one and the plain one.
+  /// those of the primitive constants of CTypeImpl are kept for the whole process:
+  /// a bounded set, published once under the lock of the type, and never changed.
+  /// other qualified variants are not cached, the parser does not build them, see TypeInterner.
+  public CType pointerTo(boolean isConst) {
+    CType p = isConst ? constPointerToThis : pointerToThis;
+    if (p != null) {
+      return p;
+    }
+
+    // types of header units are shared between threads: exactly one pointer type is published
+    synchronized (this) {
+      if (isConst) {
+        if (constPointerToThis == null) {
+          constPointerToThis = new CType(new CPointerType(this, true));
+        }
+        return constPointerToThis;
+      }
+      if (pointerToThis == null) {
+        pointerToThis = new CType(new CPointerType(this, false));
+      }
+      return pointerToThis;
+    }
+  }
+
+  /// array and function decay to pointer (to element, to function), other types are the same.
+  public CType decay() {
+    if (isArray()) {
+      return tpArray.getArrayOf().pointerTo(false);
+    }
+    if (isFunction()) {
+      return pointerTo(false);
+    }
+    return this;
+  }
+
   @Override
   public boolean isConst() {
     if (isStrUnion()) {
@@ -20,6 +20,7 @@ import ast.types.CTypeImpl;
 import ast.types.main.CStorageKind;
 import ast.types.main.CTypeKind;
 import ast.types.util.TypeCombiner;
+import ast.types.util.TypeInterner;
 
 public class ParseBase {
   private final Parse parser;
@@ -84,7 +85,7 @@ public class ParseBase {
       storageSpec = TypeCombiner.combine_storage(storage);
 
       CTypeKind bts = TypeCombiner.combine_typespec(ts);
-      CType basetype = new CType(bts);
+      CType basetype = TypeInterner.primitive(bts);
 
       return basetype;
     }
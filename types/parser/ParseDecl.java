@@ -188,7 +188,7 @@ public class ParseDecl {
     CType base = new ParseBase(parser).parseBase();
     CDecl decl = parseDecl();
 
-    CType type = TypeMerger.build(base, decl);
+    CType type = TypeMerger.build(parser.getTypes(), base, decl);
     if (decl.isAstract()) {
       return new CFuncParam(type);
     }
@@ -85,7 +85,8 @@ public class ParseEnum {
         // tag was in symtab
         //
         if (parser.tp() == T.T_LEFT_BRACE) {
-          CType type = parser.getTag(tag.getIdent()).getType();
+          final CSymbol tagsym = parser.getTag(tag.getIdent());
+          CType type = tagsym.getType();
 
           // TODO:
           // 1) this is warning: declaration was not declare anything???
@@ -98,12 +99,13 @@ public class ParseEnum {
             System.out.println("1");
           }
 
-          if (type.isIncomplete()) {
+          // a shared tag is not completed in place, it gets a new type below.
+          if (type.isIncomplete() && !tagsym.isShared()) {
             // TODO: max size, align.
             type.getTpEnum().setEnumerators(dto.getEnumerators());
           }
 
-          // is complete.
+          // is complete, or shared.
           // TODO:XXX:?
           else {
             if (paranoia) {
@@ -100,7 +100,9 @@ public class ParseStruct {
       type = sym.getType();
     }
 
-    if (type == null) {
+    // the tag of the prelude or of a header unit is shared with other translation-units:
+    // it is not completed in place, this unit defines a tag of its own.
+    if (type == null || (sym.isShared() && parser.tp() == T.T_LEFT_BRACE)) {
       type = incompleteType(from, name);
     }
 
@@ -307,7 +309,7 @@ public class ParseStruct {
     // need normal field or named bit-field
 
     CDecl decl = new ParseDecl(parser).parseDecl();
-    CType type = TypeMerger.build(base, decl);
+    CType type = TypeMerger.build(parser.getTypes(), base, decl);
 
     // named-bit-field
     //
@@ -0,0 +1,179 @@
+package ast.types.util;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jscan.symtab.Ident;
+import ast.types.CArrayType;
+import ast.types.CFuncParam;
+import ast.types.CFunctionType;
+import ast.types.CType;
+import ast.types.CTypeImpl;
+import ast.types.main.CTypeKind;
+
+/// One canonical instance per distinct type.
+///
+/// Primitives are the shared constants, pointers are cached by the type they point to.
+/// An array is canonical if it is built from a canonical type: the key is the identity
+/// of that type, so canonical types are equal exactly when they are the same reference.
+///
+/// A function type is canonical by its return type, its parameters and variadic:
+/// the names of the parameters are a part of the key, the definition declares them.
+/// Two functions which differ only in the names are two instances, and still isEqualTo.
+///
+/// Qualifiers: the const of a pointer is a part of its key, see CType.pointerTo.
+/// The parser does not apply other qualifiers to a CType (ParseBase collects and drops them),
+/// so there is nothing more to distinguish here.
+///
+/// Not interned, because they may be changed after they are built:
+/// incomplete arrays (completed by the initializer), arrays of a struct that is not complete yet
+/// (its size is set in place when the struct is defined), and old-style functions
+/// (the types of the parameters are applied later).
+/// Struct, union, enum and bitfield types are canonical by their identity.
+public class TypeInterner {
+
+  private static final Map<CTypeKind, CType> PRIMITIVES = new EnumMap<CTypeKind, CType>(CTypeKind.class);
+  static {
+    final CType[] all = { CTypeImpl.TYPE_VOID, CTypeImpl.TYPE_BOOL, CTypeImpl.TYPE_CHAR, CTypeImpl.TYPE_UCHAR,
+        CTypeImpl.TYPE_SHORT, CTypeImpl.TYPE_USHORT, CTypeImpl.TYPE_INT, CTypeImpl.TYPE_UINT, CTypeImpl.TYPE_LONG,
+        CTypeImpl.TYPE_ULONG, CTypeImpl.TYPE_LONG_LONG, CTypeImpl.TYPE_ULONG_LONG, CTypeImpl.TYPE_FLOAT,
+        CTypeImpl.TYPE_DOUBLE, CTypeImpl.TYPE_LONG_DOUBLE };
+    for (CType t : all) {
+      PRIMITIVES.put(t.getKind(), t);
+    }
+  }
+
+  private static final class Key {
+    private final CTypeKind kind;
+    private final CType of;
+    private final int extra;
+
+    Key(CTypeKind kind, CType of, int extra) {
+      this.kind = kind;
+      this.of = of;
+      this.extra = extra;
+    }
+
+    @Override
+    public int hashCode() {
+      return (System.identityHashCode(of) * 31 + kind.ordinal()) * 31 + extra;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key another = (Key) obj;
+      return kind == another.kind && of == another.of && extra == another.extra;
+    }
+  }
+
+  private static final class FunctionKey {
+    private final CType returnType;
+    private final boolean isVariadic;
+    private final Ident[] names;
+    private final CType[] params;
+
+    FunctionKey(CType returnType, List<CFuncParam> parameters, boolean isVariadic) {
+      this.returnType = returnType;
+      this.isVariadic = isVariadic;
+      this.names = new Ident[parameters.size()];
+      this.params = new CType[parameters.size()];
+      for (int i = 0; i < params.length; i++) {
+        names[i] = parameters.get(i).getName();
+        params[i] = parameters.get(i).getType();
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      int h = System.identityHashCode(returnType) * 31 + (isVariadic ? 1 : 0);
+      for (int i = 0; i < params.length; i++) {
+        h = h * 31 + System.identityHashCode(params[i]);
+        h = h * 31 + (names[i] == null ? 0 : names[i].hashCode());
+      }
+      return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof FunctionKey)) {
+        return false;
+      }
+      FunctionKey another = (FunctionKey) obj;
+      if (returnType != another.returnType || isVariadic != another.isVariadic) {
+        return false;
+      }
+      if (params.length != another.params.length) {
+        return false;
+      }
+      for (int i = 0; i < params.length; i++) {
+        if (params[i] != another.params[i]) {
+          return false;
+        }
+        final Ident name = names[i];
+        if (name == null ? another.names[i] != null : !name.equals(another.names[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private final Map<Key, CType> derived;
+  private final Map<FunctionKey, CType> functions;
+
+  public TypeInterner() {
+    this.derived = new HashMap<Key, CType>();
+    this.functions = new HashMap<FunctionKey, CType>();
+  }
+
+  public static CType primitive(CTypeKind kind) {
+    CType t = PRIMITIVES.get(kind);
+    if (t != null) {
+      return t;
+    }
+    return new CType(kind);
+  }
+
+  // cached by the type itself
+  public CType pointer(CType to, boolean isConst) {
+    return to.pointerTo(isConst);
+  }
+
+  public CType array(CType of, int len) {
+    if (len <= 0 || of.isIncomplete()) {
+      return new CType(new CArrayType(of, len));
+    }
+    final Key key = new Key(CTypeKind.TP_ARRAY_OF, of, len);
+    CType t = derived.get(key);
+    if (t == null) {
+      t = new CType(new CArrayType(of, len));
+      derived.put(key, t);
+    }
+    return t;
+  }
+
+  public CType function(CType returnType, List<CFuncParam> parameters, boolean isVariadic) {
+    for (CFuncParam param : parameters) {
+      if (!param.isHasType()) {
+        return new CType(new CFunctionType(returnType, parameters, isVariadic));
+      }
+    }
+    final FunctionKey key = new FunctionKey(returnType, parameters, isVariadic);
+    CType t = functions.get(key);
+    if (t == null) {
+      t = new CType(new CFunctionType(returnType, parameters, isVariadic));
+      functions.put(key, t);
+    }
+    return t;
+  }
+
+  public int size() {
+    return derived.size() + functions.size();
+  }
+
+}
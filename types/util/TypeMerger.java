@@ -17,6 +17,11 @@ import ast.types.main.CTypeKind;
 public abstract class TypeMerger {
 
   public static CType build(CType basetype, CDecl declarator) {
+    return build(null, basetype, declarator);
+  }
+
+  /// types: optional, pointers and arrays are taken from it.
+  public static CType build(TypeInterner types, CType basetype, CDecl declarator) {
 
     CType tp = basetype;
     if (declarator == null) {
@@ -33,14 +38,23 @@ public abstract class TypeMerger {
     for (int i = typelist.size(); --i >= 0;) {
       CDeclEntry entry = typelist.get(i);
       links.add(0, tp);
-      tp = buildFromDeclaratorEntry(entry, links.remove(0));
+      tp = buildFromDeclaratorEntry(types, entry, links.remove(0));
     }
 
     return tp;
   }
 
-  private static CType buildFromDeclaratorEntry(CDeclEntry e, CType type) {
+  private static CType buildFromDeclaratorEntry(TypeInterner types, CDeclEntry e, CType type) {
     CTypeKind base = e.getBase();
+    if (types != null && base == CTypeKind.TP_ARRAY_OF) {
+      return types.array(type, e.getArrlen());
+    }
+    if (types != null && base == CTypeKind.TP_POINTER_TO) {
+      return types.pointer(type, e.isConstPointer());
+    }
+    if (types != null && base == CTypeKind.TP_FUNCTION) {
+      return types.function(type, e.getParameters(), e.isVariadicFunction());
+    }
     if (base == CTypeKind.TP_ARRAY_OF) {
       CArrayType arr = new CArrayType(type, e.getArrlen());
       return new CType(arr);
@@ -1,12 +1,16 @@
 package ast.unit;
 
 import ast.decls.Declaration;
+import ast.errors.ParseException;
 
 public class ExternalDeclaration {
   private final boolean isFunctionDefinition;
   private FunctionDefinition functionDefinition;
   private Declaration declaration;
 
+  // imported from a header unit, the same object is a part of other translation-units
+  private volatile boolean isShared;
+
   public ExternalDeclaration(FunctionDefinition functionDefinition) {
     this.isFunctionDefinition = true;
     this.functionDefinition = functionDefinition;
@@ -22,6 +26,7 @@ public class ExternalDeclaration {
   }
 
   public void setFunctionDefinition(FunctionDefinition functionDefinition) {
+    checkNotShared();
     this.functionDefinition = functionDefinition;
   }
 
@@ -30,9 +35,16 @@ public class ExternalDeclaration {
   }
 
   public void setDeclaration(Declaration declaration) {
+    checkNotShared();
     this.declaration = declaration;
   }
 
+  private void checkNotShared() {
+    if (isShared) {
+      throw new ParseException("external declaration: shared with other translation-units, it cannot be changed");
+    }
+  }
+
   public boolean isFunctionDefinition() {
     return isFunctionDefinition;
   }
@@ -41,4 +53,12 @@ public class ExternalDeclaration {
     return !isFunctionDefinition;
   }
 
+  public boolean isShared() {
+    return isShared;
+  }
+
+  public void setShared() {
+    this.isShared = true;
+  }
+
 }
@@ -0,0 +1,8 @@
+package ast.unit;
+
+/// Receives each external declaration as soon as it is parsed.
+public interface ExternalDeclarationConsumer {
+
+  public void consume(ExternalDeclaration ed);
+
+}
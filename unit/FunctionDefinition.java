@@ -8,12 +8,17 @@ import java.util.Set;
 import jscan.symtab.Ident;
 import ast.stmt.main.CStatement;
 import ast.symtab.elements.CSymbol;
+import ast.unit.parser.LazyFunctionBody;
 
 public class FunctionDefinition {
 
   private final CSymbol symbol;
   private CStatement block;
 
+  // not null until the skipped body is parsed
+  private LazyFunctionBody lazyBody;
+  private boolean isParsingBody;
+
   private List<CSymbol> locals;
   private int localsize;
 
@@ -42,6 +47,7 @@ public class FunctionDefinition {
   }
 
   public CStatement getCompoundStatement() {
+    ensureBody();
     return block;
   }
 
@@ -58,10 +64,12 @@ public class FunctionDefinition {
   }
 
   public List<CSymbol> getLocals() {
+    ensureBody();
     return locals;
   }
 
   public int getLocalsize() {
+    ensureBody();
     return localsize;
   }
 
@@ -70,15 +78,48 @@ public class FunctionDefinition {
   }
 
   public CStatement getBlock() {
+    ensureBody();
     return block;
   }
 
   public Set<Ident> getGotos() {
+    ensureBody();
     return gotos;
   }
 
   public Set<Ident> getLabels() {
+    ensureBody();
     return labels;
   }
 
+  public void setLazyBody(LazyFunctionBody lazyBody) {
+    this.lazyBody = lazyBody;
+  }
+
+  public boolean isBodyParsed() {
+    return lazyBody == null;
+  }
+
+  // the parser of the body asks for its labels, it gets the body being parsed.
+  // if the parse fails, the body stays skipped: the next access fails again.
+  private synchronized void ensureBody() {
+    if (lazyBody == null || isParsingBody) {
+      return;
+    }
+    isParsingBody = true;
+    try {
+      lazyBody.parse(this);
+      lazyBody = null;
+    } catch (RuntimeException e) {
+      block = null;
+      localsize = 0;
+      locals.clear();
+      gotos.clear();
+      labels.clear();
+      throw e;
+    } finally {
+      isParsingBody = false;
+    }
+  }
+
 }
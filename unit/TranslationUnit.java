@@ -18,6 +18,17 @@ public class TranslationUnit {
     externalDeclarations.add(ed);
   }
 
+  /// for units kept in memory after parsing: expressions, symbols and asm statements replace
+  /// the tokens of the source with their spellings (getToken(), getFrom() and getAsmlist()
+  /// build new tokens on demand).
+  /// A skipped function body keeps the token-list until it is parsed: trim() parses all of them,
+  /// a unit parsed with lazy bodies pays here for the bodies it has not used.
+  /// Declarations and symbols shared with the prelude or the header-unit cache are not changed,
+  /// they keep their tokens. After this the other nodes of the unit refer to no token of the source.
+  public void trim() {
+    new UnitTrimmer().trim(this);
+  }
+
   public int countOfDeclarations() {
     int n = 0;
     for (ExternalDeclaration ed : externalDeclarations) {
@@ -0,0 +1,211 @@
+package ast.unit;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.decls.Declaration;
+import ast.decls.Initializer;
+import ast.expr.CExpression;
+import ast.parse.TokenSpellings;
+import ast.stmt.main.CStatement;
+import ast.symtab.elements.CSymbol;
+
+/// Replaces the tokens of the source kept by the nodes of a translation-unit with their spellings.
+/// Symbols are trimmed where they are declared, and where they are referred to.
+/// Declarations and symbols shared with the prelude or the header-unit cache are left as they are.
+final class UnitTrimmer {
+
+  private final TokenSpellings spellings = new TokenSpellings();
+
+  // a symbol is referred to from many places, and from its own initializer.
+  private final Map<CSymbol, Boolean> trimmed = new IdentityHashMap<CSymbol, Boolean>();
+
+  void trim(TranslationUnit unit) {
+    for (ExternalDeclaration ed : unit.getExternalDeclarations()) {
+      if (ed.isShared()) {
+        continue;
+      }
+      if (ed.isFunctionDefinition()) {
+        function(ed.getFunctionDefinition());
+      } else {
+        declaration(ed.getDeclaration());
+      }
+    }
+  }
+
+  private void function(FunctionDefinition fd) {
+    // a skipped body keeps the token-list, it is parsed here.
+    statement(fd.getBlock());
+    symbol(fd.getSignature());
+
+    for (CSymbol local : fd.getLocals()) {
+      symbol(local);
+    }
+  }
+
+  private void declaration(Declaration declaration) {
+    if (declaration == null || declaration.getVariables() == null) {
+      return;
+    }
+    for (CSymbol var : declaration.getVariables()) {
+      symbol(var);
+    }
+  }
+
+  private void symbol(CSymbol symbol) {
+    if (symbol == null || symbol.isShared() || trimmed.containsKey(symbol)) {
+      return;
+    }
+    trimmed.put(symbol, true);
+    symbol.trimFrom(spellings);
+    initializers(symbol.getInitializer());
+  }
+
+  private void initializers(List<Initializer> inits) {
+    if (inits == null) {
+      return;
+    }
+    for (Initializer init : inits) {
+      expression(init.getInit());
+    }
+  }
+
+  private void statement(CStatement s) {
+    if (s == null) {
+      return;
+    }
+
+    switch (s.getBase()) {
+
+    case SCOMPOUND: {
+      for (BlockItem item : s.getCompound()) {
+        declaration(item.getDeclaration());
+        statement(item.getStatement());
+      }
+      break;
+    }
+
+    case SIF: {
+      expression(s.getIfexpr());
+      statement(s.getIfstmt());
+      statement(s.getIfelse());
+      break;
+    }
+
+    case SWHILE:
+    case SDOWHILE: {
+      expression(s.getTest());
+      statement(s.getLoop());
+      break;
+    }
+
+    case SFOR: {
+      declaration(s.getDecl());
+      expression(s.getInit());
+      expression(s.getTest());
+      expression(s.getStep());
+      statement(s.getLoop());
+      break;
+    }
+
+    case SEXPR:
+    case SRETURN: {
+      expression(s.getExpr());
+      break;
+    }
+
+    case SLABEL: {
+      statement(s.getLabelstmt());
+      break;
+    }
+
+    case SSWITCH: {
+      expression(s.getSswitch().getExpr());
+      statement(s.getSswitch().getStmt());
+      break;
+    }
+
+    case SCASE: {
+      expression(s.getScase().getConstexpr());
+      statement(s.getScase().getCasestmt());
+      break;
+    }
+
+    case SDEFAULT: {
+      statement(s.getSdefault().getStmt());
+      break;
+    }
+
+    case SASM: {
+      s.trimAsmlist(spellings);
+      break;
+    }
+
+    default: {
+      // goto, break, continue, semicolon: nothing to trim
+      break;
+    }
+    }
+  }
+
+  private void expression(CExpression e) {
+    if (e == null) {
+      return;
+    }
+
+    e.trimToken(spellings);
+
+    switch (e.getBase()) {
+
+    case EASSIGN:
+    case EBINARY:
+    case ECOMMA: {
+      expression(e.getLhs());
+      expression(e.getRhs());
+      break;
+    }
+
+    case ETERNARY: {
+      expression(e.getCnd());
+      expression(e.getLhs());
+      expression(e.getRhs());
+      break;
+    }
+
+    case EUNARY:
+    case EPREINCDEC:
+    case EPOSTINCDEC:
+    case ECAST:
+    case ECOMPSEL:
+    case EPRIMARY_GENERIC: {
+      expression(e.getLhs());
+      break;
+    }
+
+    case EFCALL: {
+      expression(e.getLhs());
+      for (CExpression arg : e.getArglist()) {
+        expression(arg);
+      }
+      break;
+    }
+
+    case ECOMPLITERAL: {
+      initializers(e.getInitializerList());
+      break;
+    }
+
+    case EPRIMARY_IDENT: {
+      symbol(e.getSymbol());
+      break;
+    }
+
+    default: {
+      // number, string
+      break;
+    }
+    }
+  }
+
+}
@@ -0,0 +1,145 @@
+package ast.unit.arena;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ast.types.CType;
+
+/// Nodes of one translation-unit in parallel primitive arrays.
+/// A node is an int handle, children are handles of other nodes, NONE is no node.
+/// Operators are the ordinals of the token types, locations are packed: no token is kept.
+/// Declarations are nodes too: a declaration has variables, a variable has initializers.
+/// Types and leaf objects (symbols, constants, fields, labels) are stored once in side tables,
+/// nodes refer to them by index. These are the objects of the parser, not copies:
+/// a type or a symbol keeps its own graph (fields, parameters, the symbol of a typedef).
+final class AstArena {
+
+  static final int NONE = -1;
+
+  // node class is in the high bits of the kind, the ordinal of the base in the low
+  static final int CLASS_SHIFT = 8;
+  static final int KIND_MASK = (1 << CLASS_SHIFT) - 1;
+
+  static final int CLASS_EXPR = 1;
+  static final int CLASS_STMT = 2;
+  static final int CLASS_DECL = 3;
+  static final int CLASS_FUNC = 4;
+  static final int CLASS_VAR = 5;
+  static final int CLASS_INIT = 6;
+
+  // the low bits of the kind of a declaration
+  static final int DECL_VARLIST = 0;
+  static final int DECL_AGREGATE = 1;
+  static final int DECL_STATIC_ASSERT = 2;
+
+  int size;
+  int[] kind;
+  int[] op; // ordinal of the token type
+  int[] a;
+  int[] b;
+  int[] c;
+  int[] type;
+  int[] payload;
+  long[] location; // line and column, see PackedLocation
+  String[] file;
+
+  // children of variable count: arguments, block-items, for-loop parts
+  int listsSize;
+  int[] lists;
+
+  // handles of function definitions and declarations, in the order of the source
+  int externalsSize;
+  int[] externals;
+
+  final List<CType> types;
+  final List<Object> objects;
+
+  AstArena(int capacity) {
+    if (capacity < 16) {
+      capacity = 16;
+    }
+
+    this.kind = new int[capacity];
+    this.op = new int[capacity];
+    this.a = new int[capacity];
+    this.b = new int[capacity];
+    this.c = new int[capacity];
+    this.type = new int[capacity];
+    this.payload = new int[capacity];
+    this.location = new long[capacity];
+    this.file = new String[capacity];
+
+    this.lists = new int[capacity];
+    this.externals = new int[16];
+
+    this.types = new ArrayList<CType>();
+    this.objects = new ArrayList<Object>();
+  }
+
+  static int kindOf(int nodeClass, Enum<?> base) {
+    return kindOf(nodeClass, base == null ? 0 : base.ordinal());
+  }
+
+  static int kindOf(int nodeClass, int sub) {
+    return (nodeClass << CLASS_SHIFT) | sub;
+  }
+
+  int add(int k, int operator, int x, int y, int z, int typ, int obj, String fname, long loc) {
+    if (size == kind.length) {
+      grow(size * 2);
+    }
+
+    final int h = size++;
+    kind[h] = k;
+    op[h] = operator;
+    a[h] = x;
+    b[h] = y;
+    c[h] = z;
+    type[h] = typ;
+    payload[h] = obj;
+    location[h] = loc;
+    file[h] = fname;
+    return h;
+  }
+
+  /// room for count handles, filled when the children are added.
+  /// returns the offset of the first handle.
+  int reserveList(int count) {
+    if (listsSize + count > lists.length) {
+      lists = Arrays.copyOf(lists, Math.max(lists.length * 2, listsSize + count));
+    }
+
+    final int start = listsSize;
+    Arrays.fill(lists, start, start + count, NONE);
+    listsSize += count;
+    return start;
+  }
+
+  void addExternal(int h) {
+    if (externalsSize == externals.length) {
+      externals = Arrays.copyOf(externals, externalsSize * 2);
+    }
+    externals[externalsSize++] = h;
+  }
+
+  /// shrink all arrays to the exact size, when the arena is complete.
+  void trim() {
+    grow(size);
+    lists = Arrays.copyOf(lists, listsSize);
+    externals = Arrays.copyOf(externals, externalsSize);
+  }
+
+  private void grow(int capacity) {
+    kind = Arrays.copyOf(kind, capacity);
+    op = Arrays.copyOf(op, capacity);
+    a = Arrays.copyOf(a, capacity);
+    b = Arrays.copyOf(b, capacity);
+    c = Arrays.copyOf(c, capacity);
+    type = Arrays.copyOf(type, capacity);
+    payload = Arrays.copyOf(payload, capacity);
+    location = Arrays.copyOf(location, capacity);
+    file = Arrays.copyOf(file, capacity);
+  }
+
+}
@@ -0,0 +1,472 @@
+package ast.unit.arena;
+
+import static ast.unit.arena.AstArena.CLASS_DECL;
+import static ast.unit.arena.AstArena.CLASS_EXPR;
+import static ast.unit.arena.AstArena.CLASS_FUNC;
+import static ast.unit.arena.AstArena.CLASS_INIT;
+import static ast.unit.arena.AstArena.CLASS_STMT;
+import static ast.unit.arena.AstArena.CLASS_VAR;
+import static ast.unit.arena.AstArena.DECL_AGREGATE;
+import static ast.unit.arena.AstArena.DECL_STATIC_ASSERT;
+import static ast.unit.arena.AstArena.DECL_VARLIST;
+import static ast.unit.arena.AstArena.NONE;
+import static ast.unit.arena.AstArena.kindOf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jscan.sourceloc.SourceLocation;
+import jscan.tokenize.Token;
+import ast.decls.Declaration;
+import ast.decls.Initializer;
+import ast.errors.ParseException;
+import ast.expr.CExpression;
+import ast.parse.NullChecker;
+import ast.parse.PackedLocation;
+import ast.parse.TokenSpelling;
+import ast.parse.TokenSpellings;
+import ast.stmt.main.CStatement;
+import ast.symtab.elements.CSymbol;
+import ast.types.CType;
+import ast.unit.BlockItem;
+import ast.unit.ExternalDeclaration;
+import ast.unit.FunctionDefinition;
+import ast.unit.TranslationUnit;
+
+/// Copies the object tree of a parsed translation-unit into an arena: a compaction after the parse,
+/// the complete tree exists until the arena is built.
+/// Nodes are added in pre-order with an explicit work-stack: a node is added first,
+/// then its children are pushed with the slot of the node they are written to.
+/// The depth of the tree does not grow the java stack.
+/// When the view is built, the translation-unit is no longer needed,
+/// but the types and the leaf objects of the side tables are still the ones of the tree.
+public final class AstArenaBuilder {
+
+  // what an entry of the work-stack is
+  private static final int FUNC = 0;
+  private static final int DECL = 1;
+  private static final int VAR = 2;
+  private static final int INIT = 3;
+  private static final int STMT = 4;
+  private static final int EXPR = 5;
+
+  // where the handle of an entry is written:
+  // lists[slot] if the slot is not negative, a field of a node otherwise, see field().
+  private static final int SLOT_NONE = Integer.MIN_VALUE;
+  private static final int FIELD_A = 0;
+  private static final int FIELD_B = 1;
+  private static final int FIELD_C = 2;
+
+  private final AstArena arena;
+
+  private final Map<CType, Integer> typeIds;
+  private final Map<Object, Integer> objectIds;
+  private final TokenSpellings spellings;
+
+  private Object[] nodes;
+  private int[] whats;
+  private int[] slots;
+  private int sp;
+
+  private AstArenaBuilder(int capacity) {
+    this.arena = new AstArena(capacity);
+    this.typeIds = new IdentityHashMap<CType, Integer>();
+    this.objectIds = new IdentityHashMap<Object, Integer>();
+    this.spellings = new TokenSpellings();
+
+    this.nodes = new Object[64];
+    this.whats = new int[64];
+    this.slots = new int[64];
+  }
+
+  public static AstView build(TranslationUnit unit) {
+    NullChecker.check(unit);
+
+    final List<ExternalDeclaration> eds = unit.getExternalDeclarations();
+    AstArenaBuilder builder = new AstArenaBuilder(eds.size() * 64);
+
+    for (ExternalDeclaration ed : eds) {
+      if (ed.isFunctionDefinition()) {
+        builder.arena.addExternal(builder.build(ed.getFunctionDefinition(), FUNC));
+      } else {
+        builder.arena.addExternal(builder.build(ed.getDeclaration(), DECL));
+      }
+    }
+
+    builder.arena.trim();
+    return new AstView(builder.arena);
+  }
+
+  private int build(Object root, int what) {
+    if (root == null) {
+      return NONE;
+    }
+
+    final int h = arena.size;
+    push(root, what, SLOT_NONE);
+
+    while (sp > 0) {
+      sp--;
+      final Object node = nodes[sp];
+      final int entry = whats[sp];
+      final int slot = slots[sp];
+      nodes[sp] = null;
+
+      // pushes the children over this entry
+      write(slot, add(node, entry));
+    }
+
+    return h;
+  }
+
+  private int add(Object node, int what) {
+    switch (what) {
+    case FUNC:
+      return function((FunctionDefinition) node);
+    case DECL:
+      return declaration((Declaration) node);
+    case VAR:
+      return variable((CSymbol) node);
+    case INIT:
+      return initializer((Initializer) node);
+    case STMT:
+      return statement((CStatement) node);
+    case EXPR:
+      return expression((CExpression) node);
+    default:
+      throw new ParseException("arena: unknown entry: " + what);
+    }
+  }
+
+  private int function(FunctionDefinition fd) {
+    final CSymbol signature = fd.getSignature();
+    final int h = arena.add(kindOf(CLASS_FUNC, null), NONE, NONE, NONE, NONE, NONE, object(signature),
+        signature.getLocationFile(), signature.getLocationPacked());
+
+    push(fd.getBlock(), STMT, field(h, FIELD_A));
+    return h;
+  }
+
+  private int declaration(Declaration declaration) {
+    final SourceLocation begin = declaration.getLocation() == null ? null : declaration.getLocation().getBeginPos();
+    final String fname = PackedLocation.filename(begin);
+    final long loc = PackedLocation.pack(begin);
+
+    if (declaration.isStaticAssert()) {
+      return arena.add(kindOf(CLASS_DECL, DECL_STATIC_ASSERT), NONE, NONE, NONE, NONE, NONE, NONE, fname, loc);
+    }
+
+    if (declaration.isAgregate()) {
+      return arena.add(kindOf(CLASS_DECL, DECL_AGREGATE), NONE, NONE, NONE, NONE, type(declaration.getAgregate()),
+          NONE, fname, loc);
+    }
+
+    final List<CSymbol> variables = declaration.getVariables();
+    final int start = arena.reserveList(variables.size());
+    final int h = arena.add(kindOf(CLASS_DECL, DECL_VARLIST), NONE, NONE, start, variables.size(), NONE, NONE, fname,
+        loc);
+
+    pushList(variables, VAR, start);
+    return h;
+  }
+
+  private int variable(CSymbol sym) {
+    final List<Initializer> inits = sym.getInitializer();
+    final int count = inits == null ? 0 : inits.size();
+
+    final int start = arena.reserveList(count);
+    final int h = arena.add(kindOf(CLASS_VAR, 0), NONE, NONE, start, count, type(sym.getType()), object(sym),
+        sym.getLocationFile(), sym.getLocationPacked());
+
+    if (inits != null) {
+      pushList(inits, INIT, start);
+    }
+    return h;
+  }
+
+  private int initializer(Initializer init) {
+    final CExpression e = init.getInit();
+    final String fname = e == null ? null : e.getLocationFile();
+    final long loc = e == null ? PackedLocation.NONE : e.getLocationPacked();
+    final int h = arena.add(kindOf(CLASS_INIT, 0), NONE, NONE, NONE, init.getOffset(), NONE, NONE, fname, loc);
+
+    push(e, EXPR, field(h, FIELD_A));
+    return h;
+  }
+
+  private int statement(CStatement s) {
+    final int k = kindOf(CLASS_STMT, s.getBase());
+    final String fname = s.getLocationFile();
+    final long loc = s.getLocationPacked();
+
+    switch (s.getBase()) {
+
+    case SCOMPOUND: {
+      final List<BlockItem> items = s.getCompound();
+      final int start = arena.reserveList(items.size());
+      final int h = arena.add(k, NONE, NONE, start, items.size(), NONE, NONE, fname, loc);
+
+      for (int i = items.size() - 1; i >= 0; i--) {
+        final BlockItem item = items.get(i);
+        if (item.getDeclaration() != null) {
+          push(item.getDeclaration(), DECL, start + i);
+        } else {
+          push(item.getStatement(), STMT, start + i);
+        }
+      }
+      return h;
+    }
+
+    case SIF: {
+      final int h = arena.add(k, NONE, NONE, NONE, NONE, NONE, NONE, fname, loc);
+      push(s.getIfelse(), STMT, field(h, FIELD_C));
+      push(s.getIfstmt(), STMT, field(h, FIELD_B));
+      push(s.getIfexpr(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case SWHILE:
+    case SDOWHILE: {
+      final int h = arena.add(k, NONE, NONE, NONE, NONE, NONE, NONE, fname, loc);
+      push(s.getLoop(), STMT, field(h, FIELD_B));
+      push(s.getTest(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case SFOR: {
+      // init, test, step, loop
+      final int start = arena.reserveList(4);
+      final int h = arena.add(k, NONE, NONE, start, 4, NONE, NONE, fname, loc);
+      push(s.getLoop(), STMT, start + 3);
+      push(s.getStep(), EXPR, start + 2);
+      push(s.getTest(), EXPR, start + 1);
+      push(s.getInit(), EXPR, start);
+      push(s.getDecl(), DECL, field(h, FIELD_A));
+      return h;
+    }
+
+    case SEXPR:
+    case SRETURN: {
+      final int h = arena.add(k, NONE, NONE, NONE, NONE, NONE, NONE, fname, loc);
+      push(s.getExpr(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case SGOTO: {
+      return arena.add(k, NONE, NONE, NONE, NONE, NONE, object(s.getLabel()), fname, loc);
+    }
+
+    case SLABEL: {
+      final int h = arena.add(k, NONE, NONE, NONE, NONE, NONE, object(s.getLabel()), fname, loc);
+      push(s.getLabelstmt(), STMT, field(h, FIELD_A));
+      return h;
+    }
+
+    case SSWITCH: {
+      final int h = arena.add(k, NONE, NONE, NONE, NONE, NONE, NONE, fname, loc);
+      push(s.getSswitch().getStmt(), STMT, field(h, FIELD_B));
+      push(s.getSswitch().getExpr(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case SCASE: {
+      final int h = arena.add(k, NONE, NONE, NONE, NONE, NONE, NONE, fname, loc);
+      push(s.getScase().getCasestmt(), STMT, field(h, FIELD_B));
+      push(s.getScase().getConstexpr(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case SDEFAULT: {
+      final int h = arena.add(k, NONE, NONE, NONE, NONE, NONE, NONE, fname, loc);
+      push(s.getSdefault().getStmt(), STMT, field(h, FIELD_B));
+      return h;
+    }
+
+    case SASM: {
+      return arena.add(k, NONE, NONE, NONE, NONE, NONE, object(spellings(s.getAsmlist())), fname, loc);
+    }
+
+    case SBREAK:
+    case SCONTINUE:
+    case SSEMICOLON: {
+      return arena.add(k, NONE, NONE, NONE, NONE, NONE, NONE, fname, loc);
+    }
+
+    default: {
+      throw new ParseException("unknown: " + s.getBase().toString());
+    }
+    }
+  }
+
+  private int expression(CExpression e) {
+    final Token token = e.getToken();
+    final int op = token == null ? NONE : token.getType().ordinal();
+
+    final int k = kindOf(CLASS_EXPR, e.getBase());
+    final int typ = type(e.getResultType());
+    final String fname = e.getLocationFile();
+    final long loc = e.getLocationPacked();
+
+    switch (e.getBase()) {
+
+    case EASSIGN:
+    case EBINARY:
+    case ECOMMA: {
+      final int h = arena.add(k, op, NONE, NONE, NONE, typ, NONE, fname, loc);
+      push(e.getRhs(), EXPR, field(h, FIELD_B));
+      push(e.getLhs(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case ETERNARY: {
+      final int h = arena.add(k, op, NONE, NONE, NONE, typ, NONE, fname, loc);
+      push(e.getRhs(), EXPR, field(h, FIELD_B));
+      push(e.getLhs(), EXPR, field(h, FIELD_A));
+      push(e.getCnd(), EXPR, field(h, FIELD_C));
+      return h;
+    }
+
+    case EUNARY:
+    case EPREINCDEC:
+    case EPOSTINCDEC:
+    case ECAST:
+    case EPRIMARY_GENERIC: {
+      final int h = arena.add(k, op, NONE, NONE, NONE, typ, NONE, fname, loc);
+      push(e.getLhs(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case ECOMPSEL: {
+      final int h = arena.add(k, op, NONE, NONE, NONE, typ, object(e.getField()), fname, loc);
+      push(e.getLhs(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case EFCALL: {
+      final List<CExpression> args = e.getArglist();
+      final int start = arena.reserveList(args.size());
+      final int h = arena.add(k, op, NONE, start, args.size(), typ, NONE, fname, loc);
+      pushList(args, EXPR, start);
+      push(e.getLhs(), EXPR, field(h, FIELD_A));
+      return h;
+    }
+
+    case ECOMPLITERAL: {
+      final List<Initializer> inits = e.getInitializerList();
+      final int start = arena.reserveList(inits.size());
+      final int h = arena.add(k, op, NONE, start, inits.size(), typ, NONE, fname, loc);
+      pushList(inits, INIT, start);
+      return h;
+    }
+
+    case EPRIMARY_IDENT: {
+      return arena.add(k, op, NONE, NONE, NONE, typ, object(e.getSymbol()), fname, loc);
+    }
+
+    case EPRIMARY_NUMBER: {
+      return arena.add(k, op, NONE, NONE, NONE, typ, object(e.getCnumber()), fname, loc);
+    }
+
+    case EPRIMARY_STRING: {
+      return arena.add(k, op, NONE, NONE, NONE, typ, object(e.getCstring()), fname, loc);
+    }
+
+    default: {
+      throw new ParseException("unknown: " + e.getBase().toString());
+    }
+    }
+  }
+
+  private List<TokenSpelling> spellings(List<Token> tokens) {
+    if (tokens == null) {
+      return null;
+    }
+    List<TokenSpelling> result = new ArrayList<TokenSpelling>(tokens.size());
+    for (Token t : tokens) {
+      result.add(spellings.located(t));
+    }
+    return result;
+  }
+
+  // work-stack
+
+  private static int field(int h, int field) {
+    return -((h << 2) | field) - 1;
+  }
+
+  private void push(Object node, int what, int slot) {
+    if (node == null) {
+      return; // the slot is NONE already
+    }
+    if (sp == nodes.length) {
+      nodes = Arrays.copyOf(nodes, sp * 2);
+      whats = Arrays.copyOf(whats, sp * 2);
+      slots = Arrays.copyOf(slots, sp * 2);
+    }
+    nodes[sp] = node;
+    whats[sp] = what;
+    slots[sp] = slot;
+    sp++;
+  }
+
+  // in reverse: the first item is added first
+  private void pushList(List<?> items, int what, int start) {
+    for (int i = items.size() - 1; i >= 0; i--) {
+      push(items.get(i), what, start + i);
+    }
+  }
+
+  private void write(int slot, int h) {
+    if (slot == SLOT_NONE) {
+      return;
+    }
+    if (slot >= 0) {
+      arena.lists[slot] = h;
+      return;
+    }
+
+    final int code = -(slot + 1);
+    final int parent = code >>> 2;
+    switch (code & 3) {
+    case FIELD_A:
+      arena.a[parent] = h;
+      break;
+    case FIELD_B:
+      arena.b[parent] = h;
+      break;
+    default:
+      arena.c[parent] = h;
+      break;
+    }
+  }
+
+  // side tables
+
+  private int type(CType typ) {
+    return intern(typeIds, arena.types, typ);
+  }
+
+  private int object(Object obj) {
+    return intern(objectIds, arena.objects, obj);
+  }
+
+  private static <E> int intern(Map<E, Integer> ids, List<E> table, E e) {
+    if (e == null) {
+      return NONE;
+    }
+
+    final Integer id = ids.get(e);
+    if (id != null) {
+      return id.intValue();
+    }
+
+    final int next = table.size();
+    table.add(e);
+    ids.put(e, next);
+    return next;
+  }
+
+}
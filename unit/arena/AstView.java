@@ -0,0 +1,393 @@
+package ast.unit.arena;
+
+import static ast.unit.arena.AstArena.CLASS_DECL;
+import static ast.unit.arena.AstArena.CLASS_EXPR;
+import static ast.unit.arena.AstArena.CLASS_FUNC;
+import static ast.unit.arena.AstArena.CLASS_INIT;
+import static ast.unit.arena.AstArena.CLASS_SHIFT;
+import static ast.unit.arena.AstArena.CLASS_STMT;
+import static ast.unit.arena.AstArena.CLASS_VAR;
+import static ast.unit.arena.AstArena.DECL_AGREGATE;
+import static ast.unit.arena.AstArena.DECL_STATIC_ASSERT;
+import static ast.unit.arena.AstArena.KIND_MASK;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jscan.sourceloc.SourceLocation;
+import jscan.symtab.Ident;
+import jscan.tokenize.T;
+import jscan.tokenize.Token;
+import ast.errors.ParseException;
+import ast.expr.CExpressionBase;
+import ast.parse.PackedLocation;
+import ast.parse.TokenSpelling;
+import ast.stmt.main.CStatementBase;
+import ast.symtab.elements.CSymbol;
+import ast.symtab.elements.NumericConstant;
+import ast.symtab.elements.StringConstant;
+import ast.types.CStructField;
+import ast.types.CType;
+
+/// Read-only access to the nodes of an arena.
+/// Getters take a handle and mirror the getters of CExpression and CStatement,
+/// children are returned as handles, NONE when there is no child.
+public final class AstView {
+
+  public static final int NONE = AstArena.NONE;
+
+  private static final CExpressionBase[] EXPRESSION_BASES = CExpressionBase.values();
+  private static final CStatementBase[] STATEMENT_BASES = CStatementBase.values();
+  private static final T[] OPERATORS = T.values();
+
+  private final AstArena arena;
+
+  AstView(AstArena arena) {
+    this.arena = arena;
+  }
+
+  public int getNodeCount() {
+    return arena.size;
+  }
+
+  /// function definitions and declarations of the translation-unit, in order.
+  public int getExternalCount() {
+    return arena.externalsSize;
+  }
+
+  public int getExternal(int i) {
+    if (i < 0 || i >= arena.externalsSize) {
+      throw new ParseException("arena: external index out of range: " + i);
+    }
+    return arena.externals[i];
+  }
+
+  public boolean isExpression(int h) {
+    return nodeClass(h) == CLASS_EXPR;
+  }
+
+  public boolean isStatement(int h) {
+    return nodeClass(h) == CLASS_STMT;
+  }
+
+  public boolean isDeclaration(int h) {
+    return nodeClass(h) == CLASS_DECL;
+  }
+
+  public boolean isFunctionDefinition(int h) {
+    return nodeClass(h) == CLASS_FUNC;
+  }
+
+  /// a declared symbol of a declaration.
+  public boolean isVariable(int h) {
+    return nodeClass(h) == CLASS_VAR;
+  }
+
+  /// an initializer of a variable or of a compound literal.
+  public boolean isInitializer(int h) {
+    return nodeClass(h) == CLASS_INIT;
+  }
+
+  public CExpressionBase getExpressionBase(int h) {
+    assertClass(h, CLASS_EXPR);
+    return EXPRESSION_BASES[arena.kind[h] & KIND_MASK];
+  }
+
+  public CStatementBase getStatementBase(int h) {
+    assertClass(h, CLASS_STMT);
+    return STATEMENT_BASES[arena.kind[h] & KIND_MASK];
+  }
+
+  public SourceLocation getLocation(int h) {
+    check(h);
+    return PackedLocation.unpack(arena.file[h], arena.location[h]);
+  }
+
+  // function-definition
+
+  public CSymbol getSignature(int h) {
+    assertClass(h, CLASS_FUNC);
+    return (CSymbol) object(h);
+  }
+
+  public int getBlock(int h) {
+    assertClass(h, CLASS_FUNC);
+    return arena.a[h];
+  }
+
+  // declaration
+
+  public boolean isStaticAssert(int h) {
+    assertClass(h, CLASS_DECL);
+    return (arena.kind[h] & KIND_MASK) == DECL_STATIC_ASSERT;
+  }
+
+  /// struct, union or enum declared without variables.
+  public boolean isAgregate(int h) {
+    assertClass(h, CLASS_DECL);
+    return (arena.kind[h] & KIND_MASK) == DECL_AGREGATE;
+  }
+
+  public CType getAgregate(int h) {
+    if (!isAgregate(h)) {
+      throw new ParseException("arena: declaration " + h + " is not an agregate");
+    }
+    return arena.types.get(arena.type[h]);
+  }
+
+  public int getVariableCount(int h) {
+    assertClass(h, CLASS_DECL);
+    return arena.c[h] == NONE ? 0 : arena.c[h];
+  }
+
+  public int getVariable(int h, int i) {
+    assertClass(h, CLASS_DECL);
+    return listItem(h, i);
+  }
+
+  // variable
+
+  public CType getType(int h) {
+    assertClass(h, CLASS_VAR);
+    return arena.types.get(arena.type[h]);
+  }
+
+  /// of a variable, or of a compound literal.
+  public int getInitializerCount(int h) {
+    assertInitializerList(h);
+    return arena.c[h];
+  }
+
+  public int getInitializer(int h, int i) {
+    assertInitializerList(h);
+    return listItem(h, i);
+  }
+
+  // initializer
+
+  public int getInitializerExpr(int h) {
+    assertClass(h, CLASS_INIT);
+    return arena.a[h];
+  }
+
+  public int getInitializerOffset(int h) {
+    assertClass(h, CLASS_INIT);
+    return arena.c[h];
+  }
+
+  // expression
+
+  /// the type of the token of the operator, null if there is no token.
+  public T getOperator(int h) {
+    assertClass(h, CLASS_EXPR);
+    final int op = arena.op[h];
+    return op == NONE ? null : OPERATORS[op];
+  }
+
+  public CType getResultType(int h) {
+    assertClass(h, CLASS_EXPR);
+    final int typ = arena.type[h];
+    return typ == NONE ? null : arena.types.get(typ);
+  }
+
+  public int getLhs(int h) {
+    assertExpression(h, CExpressionBase.ECOMPSEL, CExpressionBase.EUNARY, CExpressionBase.EPREINCDEC,
+        CExpressionBase.EPOSTINCDEC, CExpressionBase.EASSIGN, CExpressionBase.EBINARY, CExpressionBase.ETERNARY,
+        CExpressionBase.ECOMMA, CExpressionBase.ECAST, CExpressionBase.EFCALL, CExpressionBase.EPRIMARY_GENERIC);
+    return arena.a[h];
+  }
+
+  public int getRhs(int h) {
+    assertExpression(h, CExpressionBase.EASSIGN, CExpressionBase.EBINARY, CExpressionBase.ETERNARY,
+        CExpressionBase.ECOMMA);
+    return arena.b[h];
+  }
+
+  public int getCnd(int h) {
+    assertExpression(h, CExpressionBase.ETERNARY);
+    return arena.c[h];
+  }
+
+  public int getArgCount(int h) {
+    assertExpression(h, CExpressionBase.EFCALL);
+    return arena.c[h];
+  }
+
+  public int getArg(int h, int i) {
+    assertExpression(h, CExpressionBase.EFCALL);
+    return listItem(h, i);
+  }
+
+  public CStructField getField(int h) {
+    assertExpression(h, CExpressionBase.ECOMPSEL);
+    return (CStructField) object(h);
+  }
+
+  /// of an identifier, or of a variable.
+  public CSymbol getSymbol(int h) {
+    if (nodeClass(h) != CLASS_VAR) {
+      assertExpression(h, CExpressionBase.EPRIMARY_IDENT);
+    }
+    return (CSymbol) object(h);
+  }
+
+  public NumericConstant getCnumber(int h) {
+    assertExpression(h, CExpressionBase.EPRIMARY_NUMBER);
+    return (NumericConstant) object(h);
+  }
+
+  public StringConstant getCstring(int h) {
+    assertExpression(h, CExpressionBase.EPRIMARY_STRING);
+    return (StringConstant) object(h);
+  }
+
+  // statement
+
+  public int getCompoundCount(int h) {
+    assertStatement(h, CStatementBase.SCOMPOUND);
+    return arena.c[h];
+  }
+
+  /// a statement or a declaration.
+  public int getCompoundItem(int h, int i) {
+    assertStatement(h, CStatementBase.SCOMPOUND);
+    return listItem(h, i);
+  }
+
+  public int getIfexpr(int h) {
+    assertStatement(h, CStatementBase.SIF);
+    return arena.a[h];
+  }
+
+  public int getIfstmt(int h) {
+    assertStatement(h, CStatementBase.SIF);
+    return arena.b[h];
+  }
+
+  public int getIfelse(int h) {
+    assertStatement(h, CStatementBase.SIF);
+    return arena.c[h];
+  }
+
+  public int getDecl(int h) {
+    assertStatement(h, CStatementBase.SFOR);
+    return arena.a[h];
+  }
+
+  public int getInit(int h) {
+    assertStatement(h, CStatementBase.SFOR);
+    return listItem(h, 0);
+  }
+
+  public int getTest(int h) {
+    if (getStatementBase(h) == CStatementBase.SFOR) {
+      return listItem(h, 1);
+    }
+    assertStatement(h, CStatementBase.SWHILE, CStatementBase.SDOWHILE);
+    return arena.a[h];
+  }
+
+  public int getStep(int h) {
+    assertStatement(h, CStatementBase.SFOR);
+    return listItem(h, 2);
+  }
+
+  public int getLoop(int h) {
+    if (getStatementBase(h) == CStatementBase.SFOR) {
+      return listItem(h, 3);
+    }
+    assertStatement(h, CStatementBase.SWHILE, CStatementBase.SDOWHILE);
+    return arena.b[h];
+  }
+
+  /// return, expression-statement, switch, case.
+  public int getExpr(int h) {
+    assertStatement(h, CStatementBase.SRETURN, CStatementBase.SEXPR, CStatementBase.SSWITCH, CStatementBase.SCASE);
+    return arena.a[h];
+  }
+
+  /// the statement of switch, case, default and label.
+  public int getSubstatement(int h) {
+    if (getStatementBase(h) == CStatementBase.SLABEL) {
+      return arena.a[h];
+    }
+    assertStatement(h, CStatementBase.SSWITCH, CStatementBase.SCASE, CStatementBase.SDEFAULT);
+    return arena.b[h];
+  }
+
+  public Ident getLabel(int h) {
+    assertStatement(h, CStatementBase.SLABEL, CStatementBase.SGOTO);
+    return (Ident) object(h);
+  }
+
+  /// new tokens, with the types, values and locations of the original ones.
+  @SuppressWarnings("unchecked")
+  public List<Token> getAsmlist(int h) {
+    assertStatement(h, CStatementBase.SASM);
+    final List<TokenSpelling> spellings = (List<TokenSpelling>) object(h);
+    if (spellings == null) {
+      return null;
+    }
+    List<Token> tokens = new ArrayList<Token>(spellings.size());
+    for (TokenSpelling spelling : spellings) {
+      tokens.add(spelling.toToken());
+    }
+    return tokens;
+  }
+
+  private void check(int h) {
+    if (h < 0 || h >= arena.size) {
+      throw new ParseException("arena: invalid handle: " + h);
+    }
+  }
+
+  private int nodeClass(int h) {
+    check(h);
+    return arena.kind[h] >>> CLASS_SHIFT;
+  }
+
+  private void assertClass(int h, int nodeClass) {
+    if (nodeClass(h) != nodeClass) {
+      throw new ParseException("arena: node " + h + " is not of the requested class");
+    }
+  }
+
+  private void assertExpression(int h, CExpressionBase... bases) {
+    final CExpressionBase base = getExpressionBase(h);
+    for (CExpressionBase b : bases) {
+      if (base == b) {
+        return;
+      }
+    }
+    throw new ParseException("you want get tree-node that doe's not exists for this base: " + base.toString());
+  }
+
+  private void assertInitializerList(int h) {
+    if (nodeClass(h) != CLASS_VAR) {
+      assertExpression(h, CExpressionBase.ECOMPLITERAL);
+    }
+  }
+
+  private void assertStatement(int h, CStatementBase... bases) {
+    final CStatementBase base = getStatementBase(h);
+    for (CStatementBase b : bases) {
+      if (base == b) {
+        return;
+      }
+    }
+    throw new ParseException("you want get tree-node that doe's not exists for this base: " + base.toString());
+  }
+
+  private int listItem(int h, int i) {
+    if (i < 0 || i >= arena.c[h]) {
+      throw new ParseException("arena: child index out of range: " + i);
+    }
+    return arena.lists[arena.b[h] + i];
+  }
+
+  private Object object(int h) {
+    final int obj = arena.payload[h];
+    return obj == NONE ? null : arena.objects.get(obj);
+  }
+
+}
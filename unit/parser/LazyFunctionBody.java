@@ -0,0 +1,56 @@
+package ast.unit.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jscan.tokenize.T;
+import jscan.tokenize.Token;
+import ast.errors.ParseException;
+import ast.parse.HashedLock;
+import ast.parse.LazyBodyContext;
+import ast.parse.Parse;
+import ast.unit.FunctionDefinition;
+
+/// Token range of a function body which was skipped by brace matching.
+/// Parsed on demand, against the file scope as it was where the function is defined.
+public class LazyFunctionBody {
+
+  private final LazyBodyContext context;
+  private final int begin;
+  private final int end;
+
+  // positions in the file scope of the symbols and the tags
+  private final int symbolsMark;
+  private final int tagsMark;
+
+  public LazyFunctionBody(LazyBodyContext context, int begin, int end, int symbolsMark, int tagsMark) {
+    this.context = context;
+    this.begin = begin;
+    this.end = end;
+    this.symbolsMark = symbolsMark;
+    this.tagsMark = tagsMark;
+  }
+
+  public void parse(FunctionDefinition fd) {
+    final List<Token> tokens = context.getTokens();
+    final Token eof = tokens.get(tokens.size() - 1);
+    if (!eof.ofType(T.TOKEN_EOF)) {
+      throw new ParseException("lazy function body: token-list without EOF");
+    }
+
+    List<Token> body = new ArrayList<Token>(end - begin + 1);
+    body.addAll(tokens.subList(begin, end));
+    body.add(eof);
+
+    HashedLock.TABLES.readLock().lock();
+    try {
+      Parse parser = new Parse(body, context, context.getFileScope(symbolsMark, tagsMark));
+      parser.pushscope();
+      new ParseExternal(parser).functionBody(fd);
+      parser.popscope();
+    } finally {
+      HashedLock.TABLES.readLock().unlock();
+    }
+  }
+
+}
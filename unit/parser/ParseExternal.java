@@ -1,19 +1,18 @@
 package ast.unit.parser;
 
+import static jscan.tokenize.T.TOKEN_EOF;
+import static jscan.tokenize.T.T_ASSIGN;
+import static jscan.tokenize.T.T_COMMA;
 import static jscan.tokenize.T.T_LEFT_BRACE;
+import static jscan.tokenize.T.T_SEMI_COLON;
 
 import java.util.List;
 import java.util.Set;
 
 import jscan.symtab.Ident;
-import jscan.tokenize.T;
-import jscan.tokenize.Token;
-import ast.attributes.main.AttributesAsmsLists;
-import ast.attributes.main.ParseAttributesAsms;
 import ast.decls.Declaration;
 import ast.decls.parser.ParseDeclarations;
 import ast.parse.Parse;
-import ast.parse.ParseState;
 import ast.stmt.main.CStatement;
 import ast.stmt.parser.ParseStatement;
 import ast.symtab.elements.CSymbol;
@@ -21,8 +20,6 @@ import ast.symtab.elements.CSymbolBase;
 import ast.types.CFuncParam;
 import ast.types.CType;
 import ast.types.decl.CDecl;
-import ast.types.parser.ParseBase;
-import ast.types.parser.ParseDecl;
 import ast.types.util.TypeMerger;
 import ast.unit.ExternalDeclaration;
 import ast.unit.FunctionDefinition;
@@ -35,95 +32,40 @@ public class ParseExternal {
     this.parser = parser;
   }
 
+  // each token is parsed once: the declaration-specifiers and the first declarator
+  // are common, the token after the declarator tells function-definition from declaration.
   public ExternalDeclaration parse() {
 
-    if (!isFunc()) {
-      final Declaration declaration = new ParseDeclarations(parser).parse();
-      return new ExternalDeclaration(declaration);
+    final ParseDeclarations pd = new ParseDeclarations(parser);
+    final Declaration complete = pd.parseSpecifiersAndDeclarator();
+    if (complete != null) {
+      return new ExternalDeclaration(complete);
     }
 
-    return functionDefinition();
-  }
-
-  public boolean isFunc() {
-
-    ParseState state = new ParseState(parser);
-    boolean result = isFuncInternal();
+    // K&R declaration-list also starts the function-definition
+    if (parser.tp() == T_LEFT_BRACE || parser.isDeclSpecStart()) {
+      return functionDefinition(pd.getBasetype(), pd.getFirstDeclarator());
+    }
 
-    parser.restoreState(state);
-    return result;
+    checkKnRDeclarationList(pd.getBasetype(), pd.getFirstDeclarator());
+    return new ExternalDeclaration(pd.parseInitDeclarators());
   }
 
-  private boolean isFuncInternal() {
-
-    //
-    //  1) declaration's
-    //
-    //  int a               ;
-    //  int a, b, c         ;
-    //  int a = 1           ;
-    //  int a()             ;
-    //  struct s { int x; } ;
-    //  int a, b(), c[1]    ;
-    //
-    //  2) function's
-    //
-    //  int f(a,b,c) int a,b,c; {  }
-    //  int f(void) {  }
-    //  int f() {  }
-    //
-
-    // try to do it lexically, instead of mess guess.
-
-    while (parser.tp() == T.T_SEMI_COLON) {
-      parser.move();
+  // a function declarator followed by neither a declaration nor a body:
+  // the declaration-list of a K&R definition, whose first token is not a type [int f(a) a; {}]
+  private void checkKnRDeclarationList(CType base, CDecl decl) {
+    final boolean isDeclarationFollows = parser.tp() == T_SEMI_COLON || parser.tp() == T_COMMA
+        || parser.tp() == T_ASSIGN || parser.tp() == TOKEN_EOF;
+    if (isDeclarationFollows) {
+      return;
     }
-
-    AttributesAsmsLists attrs = new ParseAttributesAsms(parser).parse();
-
-    boolean hasOpen = false;
-    boolean hasClose = false;
-
-    while (!parser.isEof()) {
-      
-      attrs = new ParseAttributesAsms(parser).parse();
-      
-      Token t = parser.tok();
-      parser.move();
-
-      if (!hasOpen) {
-        hasOpen = t.ofType(T.T_LEFT_PAREN);
-      }
-      if (!hasClose) {
-        hasClose = t.ofType(T.T_RIGHT_PAREN);
-      }
-
-      if (t.ofType(T.T_ASSIGN)) {
-        return false;
-      }
-
-      else if (t.ofType(T.T_SEMI_COLON)) {
-        if (parser.tok().ofType(T.T_LEFT_BRACE)) {
-          return hasOpen && hasClose; // KnR - style declaration
-        }
-        return false; // end of normal declaration
-      }
-
-      else if (t.ofType(T.T_LEFT_BRACE)) {
-        return hasOpen && hasClose;
-      }
+    if (TypeMerger.build(parser.getTypes(), base, decl).isFunction()) {
+      parser.perror("unimpl. KnR function declaration.");
     }
-
-    return false;
   }
 
-  private ExternalDeclaration functionDefinition() {
-
-    ParseBase pb = new ParseBase(parser);
-    CType base = pb.parseBase();
-
-    CDecl decl = new ParseDecl(parser).parseDecl();
-    CType type = TypeMerger.build(base, decl);
+  private ExternalDeclaration functionDefinition(CType base, CDecl decl) {
+    CType type = TypeMerger.build(parser.getTypes(), base, decl);
 
     // K&R function style declaration-list
     //
@@ -141,6 +83,21 @@ public class ParseExternal {
     parser.defineSym(decl.getName(), funcSymbol);
 
     FunctionDefinition fd = new FunctionDefinition(funcSymbol);
+
+    if (parser.isLazyBodies()) {
+      LazyFunctionBody body = parser.skipFunctionBody();
+      if (body != null) {
+        fd.setLazyBody(body);
+        return new ExternalDeclaration(fd);
+      }
+    }
+
+    functionBody(fd);
+    return new ExternalDeclaration(fd);
+  }
+
+  /// parameters, compound statement and labels of the function.
+  public void functionBody(FunctionDefinition fd) {
     parser.setCurrentFn(fd);
     parser.pushscope();
 
@@ -154,7 +111,6 @@ public class ParseExternal {
     parser.popscope();
 
     checkLabels(fd);
-    return new ExternalDeclaration(fd);
   }
 
   private void checkLabels(FunctionDefinition fd) {